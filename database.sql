@@ -12,6 +12,8 @@ CREATE TABLE users
 SELECT * FROM users;
 DESC users;
 
+ALTER TABLE users ADD INDEX users_token_expired_at_idx (token_expired_at);
+
 create table contacts(
     id varchar(100) not null,
     username varchar(100) not null,
@@ -26,6 +28,26 @@ create table contacts(
 SELECT * FROM contacts;
 DESC contacts;
 
+-- Buat paging pake cursor (urut last_name, first_name, id)
+ALTER TABLE contacts ADD INDEX contacts_username_name_idx (username, last_name, first_name, id);
+
+-- Buat app.contact.search.engine=fulltext
+ALTER TABLE contacts ADD FULLTEXT INDEX contacts_fulltext_idx (first_name, last_name, email);
+
+-- Phone yang cuma angkanya + dibalik, buat phoneMatch=exact / suffix (contact lama diisi ContactBackfill)
+ALTER TABLE contacts ADD COLUMN phone_digits varchar(100), ADD COLUMN phone_reversed varchar(100);
+ALTER TABLE contacts ADD INDEX contacts_phone_digits_idx (username, phone_digits);
+ALTER TABLE contacts ADD INDEX contacts_phone_reversed_idx (username, phone_reversed);
+
+-- Email dipecah di @ terakhir, buat cari email persis / semua email 1 domain (contact lama diisi ContactBackfill)
+ALTER TABLE contacts ADD COLUMN email_local varchar(100), ADD COLUMN email_domain varchar(100);
+ALTER TABLE contacts ADD INDEX contacts_email_idx (username, email_domain, email_local);
+
+-- Buat sort=firstName / email, page langsung dibaca urut dari index (asc maupun desc)
+-- sort=lastName pake contacts_username_name_idx (last_name, first_name, id) punya cursor
+ALTER TABLE contacts ADD INDEX contacts_username_first_name_idx (username, first_name, id);
+ALTER TABLE contacts ADD INDEX contacts_username_email_sort_idx (username, email, id);
+
 CREATE TABLE addresses (
     id varchar(100) not null,
     contact_id varchar(100) not null,
@@ -41,3 +63,24 @@ CREATE TABLE addresses (
 select * from addresses;
 desc addresses;
 
+CREATE TABLE revoked_tokens (
+    id varchar(32) not null,
+    expired_at bigint not null,
+    primary key (id),
+    index revoked_tokens_expired_at_idx (expired_at)
+) ENGINE=InnoDB;
+
+select * from revoked_tokens;
+desc revoked_tokens;
+
+CREATE TABLE sessions (
+    token_hash char(64) not null,
+    username varchar(100) not null,
+    expired_at bigint not null,
+    primary key (token_hash),
+    index sessions_username_idx (username),
+    index sessions_expired_at_idx (expired_at)
+) ENGINE=InnoDB;
+
+select * from sessions;
+desc sessions;
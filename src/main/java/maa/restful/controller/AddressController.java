@@ -32,6 +32,19 @@ public class AddressController {
         return WebResponse.<AddressResponse>builder().data(response).build();
     }
 
+    // Body : array CreateAddressRequest, semua dibuat dalam 1 transaksi
+    @PostMapping(
+            path = "/api/contacts/{contactId}/addresses:batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public WebResponse<List<AddressResponse>> createAll(User user,
+                                                        @PathVariable("contactId") String contactId,
+                                                        @RequestBody List<CreateAddressRequest> requests) {
+        List<AddressResponse> response = addressService.createAll(user, contactId, requests);
+        return WebResponse.<List<AddressResponse>>builder().data(response).build();
+    }
+
     @PutMapping(
             path = "/api/contacts/{contactId}/addresses/{addressId}",
             consumes = MediaType.APPLICATION_JSON_VALUE,
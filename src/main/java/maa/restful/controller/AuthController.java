@@ -1,15 +1,18 @@
 package maa.restful.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import maa.restful.entity.User;
 import maa.restful.model.LoginUserRequest;
 import maa.restful.model.TokenResponse;
 import maa.restful.model.WebResponse;
+import maa.restful.security.LoginThrottle;
 import maa.restful.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -18,13 +21,22 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private LoginThrottle loginThrottle;
+
     @PostMapping(
             path = "/api/auth/login",
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<TokenResponse> login(@RequestBody LoginUserRequest request) throws Exception {
+    public WebResponse<TokenResponse> login(@RequestBody LoginUserRequest request, HttpServletRequest servletRequest) throws Exception {
+        // Dicek sebelum nyari user dan BCrypt
+        loginThrottle.check(request.getUsername(), servletRequest.getRemoteAddr());
+
         TokenResponse tokenResponse = authService.login(request);
+
+        // Yang berhasil gk ngurangin jatah, cuma percobaan gagal yang dihitung
+        loginThrottle.succeeded(request.getUsername(), servletRequest.getRemoteAddr());
         return WebResponse.<TokenResponse>builder()
                 .data(tokenResponse)
                 .build();
@@ -34,8 +46,8 @@ public class AuthController {
             path = "/api/users/current",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<String> logout(User user) {
-        authService.logout(user);
+    public WebResponse<String> logout(User user, @RequestHeader("X-API-TOKEN") String token) {
+        authService.logout(user, token);
         return WebResponse.<String>builder().data("Ok").build();
     }
 }
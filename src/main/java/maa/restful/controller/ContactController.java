@@ -2,12 +2,18 @@ package maa.restful.controller;
 
 import maa.restful.entity.User;
 import maa.restful.model.*;
+import jakarta.servlet.http.HttpServletRequest;
+import maa.restful.service.ContactImportService;
 import maa.restful.service.ContactService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -16,6 +22,9 @@ public class ContactController {
     @Autowired
     private ContactService contactService;
 
+    @Autowired
+    private ContactImportService contactImportService;
+
     @PostMapping(
             path = "/api/contacts",
             consumes = MediaType.APPLICATION_JSON_VALUE, // Request
@@ -52,15 +61,63 @@ public class ContactController {
         return WebResponse.<String>builder().data(response).build();
     }
 
+    // Body dibaca langsung dari stream (NDJSON / CSV), gk di-parse jadi 1 object gede
+    @PostMapping(
+            path = "/api/contacts/import",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"},
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public WebResponse<ImportContactResponse> importContacts(User user, HttpServletRequest request) throws IOException {
+        ImportContactResponse response = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? contactImportService.importNdjson(user, request.getInputStream())
+                : contactImportService.importCsv(user, request.getInputStream());
+        return WebResponse.<ImportContactResponse>builder().data(response).build();
+    }
+
+    // Body : {"ids": ["...", "..."]}, data = jumlah contact yang kehapus
+    @DeleteMapping(
+            path = "/api/contacts",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public WebResponse<Integer> deleteAll(User user, @RequestBody BulkDeleteContactRequest request) {
+        Integer response = contactService.deleteAll(user, request);
+        return WebResponse.<Integer>builder().data(response).build();
+    }
+
+    // Path "suggest" lebih spesifik dari {contactId}, jadi gk bentrok
+    @GetMapping(
+            path = "/api/contacts/suggest",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public WebResponse<List<ContactResponse>> suggest(User user,
+                                                      @RequestParam(value = "q", required = false, defaultValue = "") String q,
+                                                      @RequestParam(value = "limit", required = false, defaultValue = "10") Integer limit) {
+        List<ContactResponse> response = contactService.suggest(user, q, limit);
+        return WebResponse.<List<ContactResponse>>builder().data(response).build();
+    }
+
     @GetMapping(
             path = "/api/contacts/{contactId}",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<ContactResponse> get(User user, @PathVariable("contactId") String contactId) {
+    public WebResponse<ContactResponse> get(User user, @PathVariable("contactId") String contactId,
+                                            @RequestParam(value = "expand", required = false) String expand) { // addresses
+        boolean withAddresses = isExpandAddresses(expand);
+
         ContactResponse response = contactService.get(user, contactId);
+        if (withAddresses) response = contactService.withAddresses(List.of(response)).get(0);
         return WebResponse.<ContactResponse>builder().data(response).build();
     }
 
+    private boolean isExpandAddresses(String expand) {
+        if (expand == null) return false;
+        if (!"addresses".equals(expand)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "expand must be addresses");
+        }
+        return true;
+    }
+
     @GetMapping(
             path = "/api/contacts",
             produces = MediaType.APPLICATION_JSON_VALUE
@@ -69,25 +126,86 @@ public class ContactController {
                                                      @RequestParam(value = "name", required = false) String name,
                                                      @RequestParam(value = "email", required = false) String email,
                                                      @RequestParam(value = "phone", required = false) String phone,
+                                                     @RequestParam(value = "phoneMatch", required = false, defaultValue = "contains") String phoneMatch, // contains | exact | suffix
                                                      @RequestParam(value = "page", required = false, defaultValue = "0") Integer page, // current page
-                                                     @RequestParam(value = "size", required = false, defaultValue = "10") Integer size) // max data per page
+                                                     @RequestParam(value = "size", required = false, defaultValue = "10") Integer size, // max data per page
+                                                     @RequestParam(value = "cursor", required = false) String cursor, // keyset paging, gantiin page
+                                                     @RequestParam(value = "count", required = false, defaultValue = "exact") String count, // none | exact | approx
+                                                     @RequestParam(value = "sort", required = false) String sort, // lastName | firstName | email
+                                                     @RequestParam(value = "direction", required = false, defaultValue = "asc") String direction, // asc | desc
+                                                     @RequestParam(value = "expand", required = false) String expand) // addresses
     {
+        boolean withAddresses = isExpandAddresses(expand);
+
+        if (!List.of("none", "exact", "approx").contains(count)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "count must be none, exact or approx");
+        }
+
+        if (!List.of("contains", "exact", "suffix").contains(phoneMatch)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "phoneMatch must be contains, exact or suffix");
+        }
+
+        if (sort != null && !List.of("lastName", "firstName", "email").contains(sort)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort must be lastName, firstName or email");
+        }
+
+        if (!List.of("asc", "desc").contains(direction)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "direction must be asc or desc");
+        }
+
+        // Cursor udah punya urutan sendiri (lastName, firstName, id)
+        if (sort != null && cursor != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort can not be used with cursor");
+        }
+
         SearchContactRequest request = SearchContactRequest.builder()
                 .name(name)
                 .email(email)
                 .phone(phone)
+                .phoneMatch(phoneMatch)
                 .page(page) // disini tempat atur page
                 .size(size)
+                .cursor(cursor)
+                .count(count)
+                .sort(sort)
+                .direction(direction)
                 .build();
 
+        // Pake cursor gk ada currentPage / totalPage, gantinya nextCursor
+        if (cursor != null) {
+            Slice<ContactResponse> contactResponses = contactService.searchByCursor(user, request);
+            List<ContactResponse> content = contactResponses.getContent();
+            return WebResponse.<List<ContactResponse>>builder()
+                    .data(withAddresses ? contactService.withAddresses(content) : content)
+                    .paging(PagingResponse.builder()
+                            .size(size)
+                            .nextCursor(contactResponses.hasNext() ? contactService.toCursor(content.get(content.size() - 1)) : null)
+                            .build())
+                    .build();
+        }
+
+        // Tanpa total, totalPage diganti hasNext
+        if ("none".equals(count)) {
+            Slice<ContactResponse> contactResponses = contactService.searchWithoutCount(user, request);
+            return WebResponse.<List<ContactResponse>>builder()
+                    .data(withAddresses ? contactService.withAddresses(contactResponses.getContent()) : contactResponses.getContent())
+                    .paging(PagingResponse.builder()
+                            .currentPage(contactResponses.getNumber())
+                            .size(contactResponses.getSize())
+                            .hasNext(contactResponses.hasNext())
+                            .build())
+                    .build();
+        }
+
         Page<ContactResponse> contactResponses = contactService.search(user,request);
 
         return WebResponse.<List<ContactResponse>>builder()
-                .data(contactResponses.getContent())
+                .data(withAddresses ? contactService.withAddresses(contactResponses.getContent()) : contactResponses.getContent())
                 .paging(PagingResponse.builder()
                         .currentPage(contactResponses.getNumber()) // bingung? lihat ContactService -> methode search() -> cari line dengan comment "setting paging"
                         .totalPage(contactResponses.getTotalPages())
                         .size(contactResponses.getSize())
+                        .hasNext("approx".equals(count) ? contactResponses.hasNext() : null)
                         .build())
                 .build();
     }
@@ -1,9 +1,11 @@
 package maa.restful.controller;
 
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolationException;
 import maa.restful.model.WebResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.server.ResponseStatusException;
@@ -28,4 +30,12 @@ public class ErrorController {
         return ResponseEntity.status(exception.getStatusCode())
                 .body(WebResponse.<String>builder().errors(exception.getMessage()).build());
     }
+
+    // Signed token usernya diambil pake getReferenceById (tanpa query), kalo usernya udah dihapus
+    // error-nya baru muncul pas datanya dipake, dianggap token gk valid
+    @ExceptionHandler({EntityNotFoundException.class, ObjectRetrievalFailureException.class})
+    public ResponseEntity<WebResponse<String>> entityNotFoundException(RuntimeException exception) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(WebResponse.<String>builder().errors("Unauthorized").build());
+    }
 }
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.util.List;
+import java.util.Locale;
 
 @Getter
 @Setter
@@ -28,7 +29,15 @@ public class Contact {
 
     private String phone;
 
-    @ManyToOne
+    // Phone yang cuma angkanya ("+62 812-3456" -> "628123456"), diisi otomatis sebelum insert / update
+    @Column(name = "phone_digits")
+    private String phoneDigits;
+
+    // Angkanya dibalik, biar cari "berakhiran ..." bisa jadi LIKE '...%' yang kena index
+    @Column(name = "phone_reversed")
+    private String phoneReversed;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "username", referencedColumnName = "username")
     private User user;
     // name = nama column yang dijadiin Foreign Key
@@ -37,4 +46,37 @@ public class Contact {
 
     @OneToMany(mappedBy = "contact")
     private List<Address> addresses;
-}
\ No newline at end of file
+
+    // Email dipecah jadi sebelum dan sesudah @ terakhir (huruf kecil), buat cari email persis / semua email di 1 domain
+    @Column(name = "email_local")
+    private String emailLocal;
+
+    @Column(name = "email_domain")
+    private String emailDomain;
+
+    @PrePersist
+    @PreUpdate
+    void normalize() {
+        this.phoneDigits = digitsOf(phone);
+        this.phoneReversed = phoneDigits == null ? null : new StringBuilder(phoneDigits).reverse().toString();
+        this.emailLocal = emailLocalOf(email);
+        this.emailDomain = emailDomainOf(email);
+    }
+
+    // Sama kayak REGEXP_REPLACE(phone, '[^0-9]', '') di backfill
+    public static String digitsOf(String phone) {
+        return phone == null ? null : phone.replaceAll("[^0-9]", "");
+    }
+
+    public static String emailLocalOf(String email) {
+        if (email == null) return null;
+        int at = email.lastIndexOf('@');
+        return (at < 0 ? email : email.substring(0, at)).toLowerCase(Locale.ROOT);
+    }
+
+    public static String emailDomainOf(String email) {
+        if (email == null) return null;
+        int at = email.lastIndexOf('@');
+        return at < 0 ? "" : email.substring(at + 1).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,25 @@
+package maa.restful.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "revoked_tokens")
+public class RevokedToken {
+    // Id dari signed token, bukan tokennya
+    @Id
+    private String id;
+
+    @Column(name = "expired_at")
+    private Long expiredAt;
+}
@@ -0,0 +1,53 @@
+package maa.restful.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "sessions")
+public class UserSession implements Persistable<String> {
+    // SHA-256 dari token, token aslinya gk disimpen
+    @Id
+    @Column(name = "token_hash")
+    private String tokenHash;
+
+    private String username;
+
+    @Column(name = "expired_at")
+    private Long expiredAt;
+
+    // Session selalu dibikin baru pas login, jadi save() bisa langsung INSERT tanpa SELECT dulu
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean fresh = true;
+
+    public UserSession(String tokenHash, String username, Long expiredAt) {
+        this.tokenHash = tokenHash;
+        this.username = username;
+        this.expiredAt = expiredAt;
+    }
+
+    @Override
+    public String getId() {
+        return tokenHash;
+    }
+
+    @Override
+    public boolean isNew() {
+        return fresh;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.fresh = false;
+    }
+}
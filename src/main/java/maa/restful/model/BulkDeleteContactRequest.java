@@ -0,0 +1,22 @@
+package maa.restful.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkDeleteContactRequest {
+
+    // Dibatasi biar IN (...) nya gk kegedean
+    @NotEmpty
+    @Size(max = 1000)
+    private List<@Size(max = 100) String> ids;
+}
@@ -1,11 +1,14 @@
 package maa.restful.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -22,4 +25,12 @@ public class ContactResponse {
 
     private String phone;
 
+    // Cuma diisi kalo request-nya pake expand=addresses
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<AddressResponse> addresses;
+
+    // Dipake query "select new ContactResponse(...)", address-nya diambil terpisah
+    public ContactResponse(String id, String firstName, String lastName, String email, String phone) {
+        this(id, firstName, lastName, email, phone, null);
+    }
 }
@@ -0,0 +1,18 @@
+package maa.restful.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImportContactError {
+
+    // Nomor baris di file (CSV header = baris 1)
+    private Long line;
+
+    private String message;
+}
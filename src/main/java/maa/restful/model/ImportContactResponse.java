@@ -0,0 +1,24 @@
+package maa.restful.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImportContactResponse {
+
+    private Long total;
+
+    private Long imported;
+
+    private Long failed;
+
+    // Dibatasi app.contact.import.max-errors, sisanya cuma masuk hitungan failed
+    private List<ImportContactError> errors;
+}
@@ -15,4 +15,10 @@ public class PagingResponse {
     private Integer totalPage;
 
     private Integer size;
+
+    // Diisi kalo request pake count=none / approx
+    private Boolean hasNext;
+
+    // Cuma diisi kalo request pake cursor, null artinya udah page terakhir
+    private String nextCursor;
 }
@@ -17,6 +17,9 @@ public class SearchContactRequest {
 
     private String phone;
 
+    // contains = ada di bagian mana aja (default), exact = nomornya sama, suffix = berakhiran phone (dibandingin angkanya aja)
+    private String phoneMatch;
+
     @Email
     private String email;
 
@@ -25,4 +28,16 @@ public class SearchContactRequest {
 
     @NotNull
     private Integer size;
+
+    // none = gk ada total, exact = COUNT(*) (default), approx = total perkiraan dari cache
+    private String count;
+
+    // null = paging biasa (page), "" = page pertama pake cursor
+    private String cursor;
+
+    // null = gk diurutin, lastName / firstName / email = urut kolom itu lalu id
+    private String sort;
+
+    // asc (default) / desc
+    private String direction;
 }
@@ -2,11 +2,15 @@ package maa.restful.repository;
 
 import maa.restful.entity.Address;
 import maa.restful.entity.Contact;
+import maa.restful.model.AddressResponse;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,5 +21,35 @@ public interface AddressRepository extends JpaRepository<Address, String>, JpaSp
 
     List<Address> findAllByContact(Contact contact);
 
-    void deleteAllByContact(Contact contact);
+    // Cek pemilik user -> contact -> address sekalian ambil address-nya, 1 query join ke contacts (gk perlu join ke users)
+    @Query("select a from Address a join a.contact c " +
+            "where a.id = :addressId and c.id = :contactId and c.user.username = :username")
+    Optional<Address> findOwned(String username, String contactId, String addressId);
+
+    @Query("select new maa.restful.model.AddressResponse(a.id, a.street, a.city, a.province, a.country, a.postalCode) " +
+            "from Address a join a.contact c " +
+            "where a.id = :addressId and c.id = :contactId and c.user.username = :username")
+    Optional<AddressResponse> findOwnedResponse(String username, String contactId, String addressId);
+
+    // Semua address 1 contact, sekalian dicek contact-nya punya user ini
+    @Query("select new maa.restful.model.AddressResponse(a.id, a.street, a.city, a.province, a.country, a.postalCode) " +
+            "from Address a join a.contact c " +
+            "where c.id = :contactId and c.user.username = :username")
+    List<AddressResponse> findOwnedResponses(String username, String contactId);
+
+    // DELETE langsung, return 0 kalo contact / address gk ada atau bukan punya user ini
+    @Modifying
+    @Query("delete from Address a where a.id = :addressId " +
+            "and a.contact.id in (select c.id from Contact c where c.id = :contactId and c.user.username = :username)")
+    int deleteOwned(String username, String contactId, String addressId);
+
+    // Address dari banyak contact sekaligus (1 query IN), buat expand=addresses
+    @Query("select new maa.restful.repository.ContactAddressRow(a.contact.id, a.id, a.street, a.city, a.province, a.country, a.postalCode) " +
+            "from Address a where a.contact.id in :contactIds order by a.id")
+    List<ContactAddressRow> findRowsByContactIdIn(Collection<String> contactIds);
+
+    // 1 DELETE buat semua address dari contact-contact ini, tanpa load entity dulu
+    @Modifying
+    @Query("delete from Address a where a.contact.id in :contactIds")
+    int deleteAllByContactIdIn(Collection<String> contactIds);
 }
@@ -0,0 +1,12 @@
+package maa.restful.repository;
+
+import maa.restful.model.AddressResponse;
+
+// 1 baris address + id contact-nya, biar hasil query IN bisa dikelompokin per contact
+public record ContactAddressRow(String contactId, String id, String street, String city, String province,
+                                String country, String postalCode) {
+
+    public AddressResponse toAddressResponse() {
+        return new AddressResponse(id, street, city, province, country, postalCode);
+    }
+}
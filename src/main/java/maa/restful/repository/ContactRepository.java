@@ -2,15 +2,55 @@ package maa.restful.repository;
 
 import maa.restful.entity.Contact;
 import maa.restful.entity.User;
+import maa.restful.model.ContactResponse;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ContactRepository  extends JpaRepository<Contact, String>, JpaSpecificationExecutor<Contact> { // JpaSpecification buat bikin Query yang lebih advance
+public interface ContactRepository  extends JpaRepository<Contact, String>, JpaSpecificationExecutor<Contact>, ContactRepositoryCustom { // JpaSpecification buat bikin Query yang lebih advance
 
     // Bikin Query untuk mencari contact berdasarkan user saat ini
     Optional<Contact> findFirstByUserAndId(User user, String id);
+
+    long countByUser(User user);
+
+    boolean existsByUserAndId(User user, String id);
+
+    // Langsung jadi ContactResponse, gk bikin entity (user cukup dicek dari foreign key, gk join ke users)
+    @Query("select new maa.restful.model.ContactResponse(c.id, c.firstName, c.lastName, c.email, c.phone) " +
+            "from Contact c where c.user.username = :username and c.id = :id")
+    Optional<ContactResponse> findResponseByUsernameAndId(String username, String id);
+
+    // Ambil contact berdasarkan banyak id sekaligus, tetep dicek punya user saat ini
+    @Query("select new maa.restful.model.ContactResponse(c.id, c.firstName, c.lastName, c.email, c.phone) " +
+            "from Contact c where c.user.username = :username and c.id in :ids")
+    List<ContactResponse> findResponsesByUsernameAndIdIn(String username, Collection<String> ids);
+
+    // Cuma id yang beneran punya user ini, id lain diabaikan
+    @Query("select c.id from Contact c where c.user.username = :username and c.id in :ids")
+    List<String> findIdsByUsernameAndIdIn(String username, Collection<String> ids);
+
+    // Langsung DELETE tanpa load entity dulu, address-nya harus udah dihapus duluan
+    @Modifying
+    @Query("delete from Contact c where c.id in :ids")
+    int deleteAllByIdIn(Collection<String> ids);
+
+    // Buat autocomplete user yang contactnya kebanyakan buat disimpen di memory
+    @Query("select new maa.restful.model.ContactResponse(c.id, c.firstName, c.lastName, c.email, c.phone) " +
+            "from Contact c where c.user.username = :username " +
+            "and (c.firstName like :prefix escape '!' or c.lastName like :prefix escape '!' or c.email like :prefix escape '!') " +
+            "order by c.lastName, c.firstName, c.id")
+    List<ContactResponse> findResponsesByPrefix(String username, String prefix, Pageable pageable);
+
+    // Cuma field yang dipake buat search index: id, firstName, lastName, email, phone
+    @Query("select c.id, c.firstName, c.lastName, c.email, c.phone from Contact c where c.user.username = :username")
+    List<Object[]> findSearchFieldsByUsername(String username);
 }
@@ -0,0 +1,25 @@
+package maa.restful.repository;
+
+import maa.restful.entity.Contact;
+import maa.restful.model.ContactResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+// Query contact yang gk bisa dibikin pake Specification / nama method, implementasinya di ContactRepositoryImpl
+// Semuanya langsung select kolom yang dipake ContactResponse aja, gk bikin entity
+public interface ContactRepositoryCustom {
+
+    // MATCH(first_name, last_name, email) AGAINST (:match IN BOOLEAN MODE), sisanya tetep dicek pake LIKE
+    Page<ContactResponse> searchFulltext(String username, String match, String name, String email, String phone, Pageable pageable);
+
+    // Sama kayak searchFulltext tanpa COUNT(*), ambil size + 1 data buat ngisi hasNext
+    Slice<ContactResponse> searchFulltextSlice(String username, String match, String name, String email, String phone, Pageable pageable);
+
+    // Kayak findAll(specification, pageable)
+    Page<ContactResponse> findResponses(Specification<Contact> specification, Pageable pageable);
+
+    // Kayak findAll(specification, pageable) tapi tanpa COUNT(*), ambil size + 1 data buat ngisi hasNext
+    Slice<ContactResponse> findResponseSlice(Specification<Contact> specification, Pageable pageable);
+}
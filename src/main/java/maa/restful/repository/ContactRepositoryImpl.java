@@ -0,0 +1,154 @@
+package maa.restful.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import maa.restful.entity.Contact;
+import maa.restful.model.ContactResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// Nama class harus {NamaRepository}Impl biar otomatis dipake Spring Data
+public class ContactRepositoryImpl implements ContactRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<ContactResponse> searchFulltext(String username, String match, String name, String email, String phone, Pageable pageable) {
+        List<Object> parameters = new ArrayList<>();
+        String where = fulltextWhere(username, match, name, email, phone, parameters);
+
+        Query count = entityManager.createNativeQuery("SELECT count(*)" + where);
+        for (int i = 0; i < parameters.size(); i++) {
+            count.setParameter(i + 1, parameters.get(i));
+        }
+
+        long total = ((Number) count.getSingleResult()).longValue();
+        if (total <= pageable.getOffset()) {
+            return new PageImpl<>(List.of(), pageable, total);
+        }
+
+        return new PageImpl<>(selectFulltext(where, parameters, pageable, pageable.getPageSize()), pageable, total);
+    }
+
+    @Override
+    public Slice<ContactResponse> searchFulltextSlice(String username, String match, String name, String email, String phone, Pageable pageable) {
+        List<Object> parameters = new ArrayList<>();
+        String where = fulltextWhere(username, match, name, email, phone, parameters);
+
+        List<ContactResponse> contacts = selectFulltext(where, parameters, pageable, pageable.getPageSize() + 1);
+        boolean hasNext = contacts.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? contacts.subList(0, pageable.getPageSize()) : contacts, pageable, hasNext);
+    }
+
+    private String fulltextWhere(String username, String match, String name, String email, String phone, List<Object> parameters) {
+        StringBuilder where = new StringBuilder(" FROM contacts WHERE username = ?");
+        parameters.add(username);
+
+        // Pake index FULLTEXT buat nyaring kandidat
+        where.append(" AND MATCH(first_name, last_name, email) AGAINST (? IN BOOLEAN MODE)");
+        parameters.add(match);
+
+        // LIKE cuma ngecek baris hasil MATCH, biar hasilnya tetep sama kayak search biasa
+        if (Objects.nonNull(name)) {
+            where.append(" AND (first_name LIKE ? OR last_name LIKE ?)");
+            parameters.add("%" + name + "%");
+            parameters.add("%" + name + "%");
+        }
+
+        if (Objects.nonNull(email)) {
+            where.append(" AND email LIKE ?");
+            parameters.add("%" + email + "%");
+        }
+
+        // Sama kayak ContactService.phonePredicate, "0812 3456" juga ketemu kalo disimpennya "0812-3456"
+        if (Objects.nonNull(phone)) {
+            String digits = Contact.digitsOf(phone);
+            if (digits.isEmpty()) {
+                where.append(" AND phone LIKE ?");
+                parameters.add("%" + phone + "%");
+            } else {
+                where.append(" AND (phone LIKE ? OR phone_digits LIKE ?)");
+                parameters.add("%" + phone + "%");
+                parameters.add("%" + digits + "%");
+            }
+        }
+
+        return where.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ContactResponse> selectFulltext(String where, List<Object> parameters, Pageable pageable, int limit) {
+        Query select = entityManager.createNativeQuery("SELECT id, first_name, last_name, email, phone" + where + " ORDER BY id");
+        for (int i = 0; i < parameters.size(); i++) {
+            select.setParameter(i + 1, parameters.get(i));
+        }
+
+        select.setFirstResult((int) pageable.getOffset());
+        select.setMaxResults(limit);
+        return ((List<Object[]>) select.getResultList()).stream()
+                .map(row -> new ContactResponse((String) row[0], (String) row[1], (String) row[2], (String) row[3], (String) row[4]))
+                .toList();
+    }
+
+    @Override
+    public Page<ContactResponse> findResponses(Specification<Contact> specification, Pageable pageable) {
+        List<ContactResponse> contacts = select(specification, pageable, pageable.getPageSize());
+
+        // Sama kayak Spring Data, COUNT(*) gk perlu kalo page pertama udah gk penuh
+        long total;
+        if (pageable.getOffset() == 0 && contacts.size() < pageable.getPageSize()) {
+            total = contacts.size();
+        } else {
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Long> query = builder.createQuery(Long.class);
+            Root<Contact> root = query.from(Contact.class);
+            Predicate predicate = specification.toPredicate(root, query, builder);
+            if (predicate != null) query.where(predicate);
+            query.select(builder.count(root));
+            total = entityManager.createQuery(query).getSingleResult();
+        }
+        return new PageImpl<>(contacts, pageable, total);
+    }
+
+    @Override
+    public Slice<ContactResponse> findResponseSlice(Specification<Contact> specification, Pageable pageable) {
+        List<ContactResponse> contacts = select(specification, pageable, pageable.getPageSize() + 1);
+
+        boolean hasNext = contacts.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? contacts.subList(0, pageable.getPageSize()) : contacts, pageable, hasNext);
+    }
+
+    // SELECT id, first_name, last_name, email, phone ... tanpa join ke users (where user = ? cukup pake foreign key)
+    private List<ContactResponse> select(Specification<Contact> specification, Pageable pageable, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ContactResponse> query = builder.createQuery(ContactResponse.class);
+        Root<Contact> root = query.from(Contact.class);
+
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) query.where(predicate);
+        query.select(builder.construct(ContactResponse.class,
+                root.get("id"), root.get("firstName"), root.get("lastName"), root.get("email"), root.get("phone")));
+        if (pageable.getSort().isSorted()) query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        TypedQuery<ContactResponse> typedQuery = entityManager.createQuery(query);
+        typedQuery.setFirstResult((int) pageable.getOffset());
+        typedQuery.setMaxResults(limit);
+        return typedQuery.getResultList();
+    }
+}
@@ -0,0 +1,20 @@
+package maa.restful.repository;
+
+import maa.restful.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    List<RevokedToken> findAllByExpiredAtGreaterThan(Long now);
+
+    // Token yang udah expired gk perlu dicatat lagi
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiredAt < :now")
+    int deleteExpired(Long now);
+}
@@ -1,9 +1,13 @@
 package maa.restful.repository;
 
+import jakarta.transaction.Transactional;
 import maa.restful.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +16,14 @@ public interface UserRepository extends JpaRepository<User, String> {
 
     // Bikin query sendiri
     Optional<User> findFirstByToken(String token);
+
+    // Semua token yang belum expired, dipake buat ngisi LiveTokenFilter
+    @Query("select u.token from User u where u.token is not null and u.tokenExpiredAt > :now")
+    List<String> findLiveTokens(Long now);
+
+    // Cuma ganti password kalo hash lamanya masih sama, biar gk nimpa password yang baru diganti
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :newPassword where u.username = :username and u.password = :oldPassword")
+    int updatePassword(String username, String oldPassword, String newPassword);
 }
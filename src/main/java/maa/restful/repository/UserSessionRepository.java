@@ -0,0 +1,22 @@
+package maa.restful.repository;
+
+import maa.restful.entity.UserSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserSessionRepository extends JpaRepository<UserSession, String> {
+
+    // Hash semua session yang belum expired, dipake buat ngisi LiveTokenFilter
+    @Query("select s.tokenHash from UserSession s where s.expiredAt > :now")
+    List<String> findLiveTokenHashes(Long now);
+
+    // Langsung DELETE tanpa load entity dulu
+    @Modifying
+    @Query("delete from UserSession s where s.tokenHash = :tokenHash")
+    int deleteByTokenHash(String tokenHash);
+}
@@ -2,8 +2,17 @@ package maa.restful.resolver;
 
 import jakarta.servlet.http.HttpServletRequest;
 import maa.restful.entity.User;
+import maa.restful.entity.UserSession;
 import maa.restful.repository.UserRepository;
+import maa.restful.repository.UserSessionRepository;
+import maa.restful.security.LiveTokenFilter;
+import maa.restful.security.SignedTokenCodec;
+import maa.restful.security.SlidingExpiry;
+import maa.restful.security.TokenCache;
+import maa.restful.security.TokenHash;
+import maa.restful.security.TokenRevocationList;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
@@ -24,6 +33,27 @@ public class UserArgumentResolver implements HandlerMethodArgumentResolver {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TokenCache tokenCache;
+
+    @Autowired
+    private LiveTokenFilter liveTokenFilter;
+
+    @Autowired
+    private SignedTokenCodec signedTokenCodec;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    @Autowired
+    private SlidingExpiry slidingExpiry;
+
+    @Value("${app.auth.token-mode:uuid}")
+    private String tokenMode;
+
     // Ini tempat cocokin typeData yang diharapkan
     @Override
     public boolean supportsParameter(MethodParameter parameter) {
@@ -41,17 +71,83 @@ public class UserArgumentResolver implements HandlerMethodArgumentResolver {
         // Kalo tokennya kosong artinya blm login gk bisa akses API
         if (token == null) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,"Unauthorized");
 
+        // Signed token cukup dicek signature, expired sama revocation listnya, gk perlu ke database
+        if (signedTokenCodec.isEnabled() && signedTokenCodec.isSigned(token)) {
+            return resolveSignedToken(token);
+        }
+
+        // Cek cache dulu, entry di cache dijamin belum expired
+        User cached = tokenCache.get(token);
+        if (cached != null) {
+            slidingExpiry.touch(token, null);
+            return cached;
+        }
+
+        // Token yang udah pasti gk valid langsung ditolak tanpa query
+        if (liveTokenFilter.rejects(token)) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,"Unauthorized");
+
         // Cari user dengan token yang sama
-        User user = userRepository.findFirstByToken(token).orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED,"Unauthorized"));
+        User user = "session".equals(tokenMode) ? findBySession(token) : findByToken(token);
+
+        if (user == null) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,"Unauthorized");
+
+        // Kalo semuanya lolos maka kirim User saat ini sebagai Params untuk masing-masing Controller yang paramnya (User user)
+        return user;
+    }
+
+    private User findByToken(String token) {
+        User user = userRepository.findFirstByToken(token).orElse(null);
+        if (user == null) {
+            liveTokenFilter.recordMiss(token);
+            return null;
+        }
 
         // Masa expired token tidak boleh telat
         if (user.getTokenExpiredAt() < System.currentTimeMillis()) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,"Unauthorized");
+            liveTokenFilter.recordExpired(token);
+            return null;
         }
 
-        // Kalo semuanya lolos maka kirim User saat ini sebagai Params untuk masing-masing Controller yang paramnya (User user)
+        // Simpan ke cache biar request berikutnya gk perlu query lagi
+        tokenCache.put(user);
+        slidingExpiry.touch(token, user.getTokenExpiredAt());
         return user;
     }
+
+    // Lookup pake primary key table sessions (hash dari token), bukan index token di table users
+    private User findBySession(String token) {
+        UserSession session = userSessionRepository.findById(TokenHash.hex(token)).orElse(null);
+        if (session == null) {
+            liveTokenFilter.recordMiss(token);
+            return null;
+        }
+        if (session.getExpiredAt() < System.currentTimeMillis()) {
+            liveTokenFilter.recordExpired(token);
+            return null;
+        }
+
+        User user = userRepository.findById(session.getUsername()).orElse(null);
+        if (user == null) {
+            liveTokenFilter.recordExpired(token);
+            return null;
+        }
+        tokenCache.put(token, user, session.getExpiredAt());
+        slidingExpiry.touch(token, session.getExpiredAt());
+        return user;
+    }
+
+    private User resolveSignedToken(String token) {
+        SignedTokenCodec.Claims claims = signedTokenCodec.verify(token);
+        if (claims == null
+                || claims.expiredAt() < System.currentTimeMillis()
+                || tokenRevocationList.isRevoked(claims.id())) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,"Unauthorized");
+        }
+
+        // getReferenceById gk langsung query, datanya baru diambil kalo field selain username dipake (misal di UserService)
+        // Kalo ternyata usernya udah gk ada, EntityNotFoundException-nya dijadiin 401 sama ErrorController
+        return userRepository.getReferenceById(claims.username());
+    }
 }
 
 // Setelah membuat ArgumentResolver kita harus mendaftarkannya di dalam WebConfiguration
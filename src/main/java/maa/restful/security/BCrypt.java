@@ -209,10 +209,31 @@ public class BCrypt {
     static final int MIN_LOG_ROUNDS = 4;
     static final int MAX_LOG_ROUNDS = 31;
 
+    // Per-thread working state, so hashing does not allocate a fresh key schedule
+    // (and a pile of tiny out-param arrays) on every call
+    private static final ThreadLocal<BCrypt> STATE = ThreadLocal.withInitial(BCrypt::new);
+
+    // Shared source of salt bytes; SecureRandom is thread-safe and expensive to seed
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     // Expanded Blowfish key
-    private int P[];
+    private final int P[] = new int[P_orig.length];
+
+    private final int S[] = new int[S_orig.length];
+
+    // Scratch buffers reused between calls on the same thread
+    private final int lr[] = new int[2];
+
+    private final int cdata[] = new int[bf_crypt_ciphertext.length];
+
+    private final byte saltb[] = new byte[BCRYPT_SALT_LEN];
+
+    private final byte hashed[] = new byte[bf_crypt_ciphertext.length * 4];
 
-    private int S[];
+    private final StringBuilder rs = new StringBuilder(60);
+
+    // Offset into the key material currently being streamed
+    private int streamoff;
 
     /**
      * Encode a byte array using bcrypt's slightly-modified base64 encoding scheme. Note
@@ -276,16 +297,29 @@ public class BCrypt {
      * @throws IllegalArgumentException if maxolen is invalid
      */
     static byte[] decode_base64(String s, int maxolen) throws IllegalArgumentException {
-        StringBuilder rs = new StringBuilder();
-        int off = 0, slen = s.length(), olen = 0;
-        byte ret[];
-        byte c1, c2, c3, c4, o;
-
         if (maxolen <= 0) {
             throw new IllegalArgumentException("Invalid maxolen");
         }
+        byte buf[] = new byte[maxolen];
+        int olen = decode_base64(s, 0, s.length(), buf, maxolen);
+        return Arrays.copyOf(buf, olen);
+    }
 
-        while (off < slen - 1 && olen < maxolen) {
+    /**
+     * Decode part of a string encoded using bcrypt's base64 scheme straight into a
+     * caller-supplied buffer
+     * @param s the string to decode
+     * @param from the index of the first character to decode
+     * @param to the index after the last character to decode
+     * @param out the destination buffer
+     * @param maxolen the maximum number of bytes to decode
+     * @return the number of bytes written to out
+     */
+    private static int decode_base64(String s, int from, int to, byte out[], int maxolen) {
+        int off = from, olen = 0;
+        byte c1, c2, c3, c4, o;
+
+        while (off < to - 1 && olen < maxolen) {
             c1 = char64(s.charAt(off++));
             c2 = char64(s.charAt(off++));
             if (c1 == -1 || c2 == -1) {
@@ -293,8 +327,8 @@ public class BCrypt {
             }
             o = (byte) (c1 << 2);
             o |= (c2 & 0x30) >> 4;
-            rs.append((char) o);
-            if (++olen >= maxolen || off >= slen) {
+            out[olen] = o;
+            if (++olen >= maxolen || off >= to) {
                 break;
             }
             c3 = char64(s.charAt(off++));
@@ -303,22 +337,17 @@ public class BCrypt {
             }
             o = (byte) ((c2 & 0x0f) << 4);
             o |= (c3 & 0x3c) >> 2;
-            rs.append((char) o);
-            if (++olen >= maxolen || off >= slen) {
+            out[olen] = o;
+            if (++olen >= maxolen || off >= to) {
                 break;
             }
             c4 = char64(s.charAt(off++));
             o = (byte) ((c3 & 0x03) << 6);
             o |= c4;
-            rs.append((char) o);
+            out[olen] = o;
             ++olen;
         }
-
-        ret = new byte[olen];
-        for (off = 0; off < olen; off++) {
-            ret[off] = (byte) rs.charAt(off);
-        }
-        return ret;
+        return olen;
     }
 
     /**
@@ -327,117 +356,112 @@ public class BCrypt {
      * @param off the position in the array of the blocks
      */
     private void encipher(int lr[], int off) {
+        final int P[] = this.P, S[] = this.S;
         int i, n, l = lr[off], r = lr[off + 1];
 
-        l ^= this.P[0];
+        l ^= P[0];
         for (i = 0; i <= BLOWFISH_NUM_ROUNDS - 2;) {
             // Feistel substitution on left word
-            n = this.S[(l >> 24) & 0xff];
-            n += this.S[0x100 | ((l >> 16) & 0xff)];
-            n ^= this.S[0x200 | ((l >> 8) & 0xff)];
-            n += this.S[0x300 | (l & 0xff)];
-            r ^= n ^ this.P[++i];
+            n = S[(l >> 24) & 0xff];
+            n += S[0x100 | ((l >> 16) & 0xff)];
+            n ^= S[0x200 | ((l >> 8) & 0xff)];
+            n += S[0x300 | (l & 0xff)];
+            r ^= n ^ P[++i];
 
             // Feistel substitution on right word
-            n = this.S[(r >> 24) & 0xff];
-            n += this.S[0x100 | ((r >> 16) & 0xff)];
-            n ^= this.S[0x200 | ((r >> 8) & 0xff)];
-            n += this.S[0x300 | (r & 0xff)];
-            l ^= n ^ this.P[++i];
+            n = S[(r >> 24) & 0xff];
+            n += S[0x100 | ((r >> 16) & 0xff)];
+            n ^= S[0x200 | ((r >> 8) & 0xff)];
+            n += S[0x300 | (r & 0xff)];
+            l ^= n ^ P[++i];
         }
-        lr[off] = r ^ this.P[BLOWFISH_NUM_ROUNDS + 1];
+        lr[off] = r ^ P[BLOWFISH_NUM_ROUNDS + 1];
         lr[off + 1] = l;
     }
 
     /**
-     * Cycically extract a word of key material
+     * Cycically extract a word of key material, continuing from the current stream
+     * offset. Bytes at or past data.length read as zero, which lets the $2a$ style
+     * trailing NUL be streamed without copying the password.
      * @param data the string to extract the data from
-     * @param offp a "pointer" (as a one-entry array) to the current offset into data
-     * @param signp a "pointer" (as a one-entry array) to the cumulative flag for
-     * non-benign sign extension
-     * @return correct and buggy next word of material from data as int[2]
+     * @param len the length of the key material, possibly data.length + 1
+     * @return the next word of material from data
      */
-    private static int[] streamtowords(byte data[], int offp[], int signp[]) {
-        int i;
-        int words[] = { 0, 0 };
-        int off = offp[0];
-        int sign = signp[0];
-
-        for (i = 0; i < 4; i++) {
-            words[0] = (words[0] << 8) | (data[off] & 0xff);
-            words[1] = (words[1] << 8) | data[off]; // sign extension bug
-            if (i > 0) {
-                sign |= words[1] & 0x80;
+    private int streamtoword(byte data[], int len) {
+        int word = 0, off = this.streamoff;
+
+        for (int i = 0; i < 4; i++) {
+            word = (word << 8) | ((off < data.length ? data[off] : 0) & 0xff);
+            if (++off == len) {
+                off = 0;
             }
-            off = (off + 1) % data.length;
         }
 
-        offp[0] = off;
-        signp[0] = sign;
-        return words;
-    }
-
-    /**
-     * Cycically extract a word of key material
-     * @param data the string to extract the data from
-     * @param offp a "pointer" (as a one-entry array) to the current offset into data
-     * @return the next word of material from data
-     */
-    private static int streamtoword(byte data[], int offp[]) {
-        int signp[] = { 0 };
-        return streamtowords(data, offp, signp)[0];
+        this.streamoff = off;
+        return word;
     }
 
     /**
      * Cycically extract a word of key material, with sign-extension bug
      * @param data the string to extract the data from
-     * @param offp a "pointer" (as a one-entry array) to the current offset into data
+     * @param len the length of the key material, possibly data.length + 1
      * @return the next word of material from data
      */
-    private static int streamtoword_bug(byte data[], int offp[]) {
-        int signp[] = { 0 };
-        return streamtowords(data, offp, signp)[1];
+    private int streamtoword_bug(byte data[], int len) {
+        int word = 0, off = this.streamoff;
+
+        for (int i = 0; i < 4; i++) {
+            word = (word << 8) | (off < data.length ? data[off] : 0); // sign extension bug
+            if (++off == len) {
+                off = 0;
+            }
+        }
+
+        this.streamoff = off;
+        return word;
     }
 
     /**
      * Initialise the Blowfish key schedule
      */
     private void init_key() {
-        this.P = P_orig.clone();
-        this.S = S_orig.clone();
+        System.arraycopy(P_orig, 0, this.P, 0, P_orig.length);
+        System.arraycopy(S_orig, 0, this.S, 0, S_orig.length);
     }
 
     /**
      * Key the Blowfish cipher
      * @param key an array containing the key
+     * @param klen the length of the key material, possibly key.length + 1
      * @param sign_ext_bug true to implement the 2x bug
-     * @param safety bit 16 is set when the safety measure is requested
      */
-    private void key(byte key[], boolean sign_ext_bug, int safety) {
+    private void key(byte key[], int klen, boolean sign_ext_bug) {
+        final int P[] = this.P, S[] = this.S, lr[] = this.lr;
         int i;
-        int koffp[] = { 0 };
-        int lr[] = { 0, 0 };
-        int plen = this.P.length, slen = this.S.length;
+        int plen = P.length, slen = S.length;
 
+        this.streamoff = 0;
         for (i = 0; i < plen; i++) {
             if (!sign_ext_bug) {
-                this.P[i] = this.P[i] ^ streamtoword(key, koffp);
+                P[i] = P[i] ^ streamtoword(key, klen);
             }
             else {
-                this.P[i] = this.P[i] ^ streamtoword_bug(key, koffp);
+                P[i] = P[i] ^ streamtoword_bug(key, klen);
             }
         }
 
+        lr[0] = 0;
+        lr[1] = 0;
         for (i = 0; i < plen; i += 2) {
             encipher(lr, 0);
-            this.P[i] = lr[0];
-            this.P[i + 1] = lr[1];
+            P[i] = lr[0];
+            P[i + 1] = lr[1];
         }
 
         for (i = 0; i < slen; i += 2) {
             encipher(lr, 0);
-            this.S[i] = lr[0];
-            this.S[i + 1] = lr[1];
+            S[i] = lr[0];
+            S[i + 1] = lr[1];
         }
     }
 
@@ -446,25 +470,35 @@ public class BCrypt {
      * Future-Adaptable Password Scheme" https://www.openbsd.org/papers/bcrypt-paper.ps
      * @param data salt information
      * @param key password information
+     * @param klen the length of the key material, possibly key.length + 1
      * @param sign_ext_bug true to implement the 2x bug
      * @param safety bit 16 is set when the safety measure is requested
      */
-    private void ekskey(byte data[], byte key[], boolean sign_ext_bug, int safety) {
+    private void ekskey(byte data[], byte key[], int klen, boolean sign_ext_bug, int safety) {
+        final int P[] = this.P, S[] = this.S, lr[] = this.lr;
         int i;
-        int koffp[] = { 0 }, doffp[] = { 0 };
-        int lr[] = { 0, 0 };
-        int plen = this.P.length, slen = this.S.length;
-        int signp[] = { 0 }; // non-benign sign-extension flag
+        int plen = P.length, slen = S.length;
+        int koff = 0;
+        int sign = 0; // non-benign sign-extension flag
         int diff = 0; // zero iff correct and buggy are same
 
         for (i = 0; i < plen; i++) {
-            int words[] = streamtowords(key, koffp, signp);
-            diff |= words[0] ^ words[1];
-            this.P[i] = this.P[i] ^ words[sign_ext_bug ? 1 : 0];
+            int word = 0, word_bug = 0;
+            for (int j = 0; j < 4; j++) {
+                byte b = koff < key.length ? key[koff] : 0;
+                word = (word << 8) | (b & 0xff);
+                word_bug = (word_bug << 8) | b; // sign extension bug
+                if (j > 0) {
+                    sign |= word_bug & 0x80;
+                }
+                if (++koff == klen) {
+                    koff = 0;
+                }
+            }
+            diff |= word ^ word_bug;
+            P[i] = P[i] ^ (sign_ext_bug ? word_bug : word);
         }
 
-        int sign = signp[0];
-
         /*
          * At this point, "diff" is zero iff the correct and buggy algorithms produced
          * exactly the same result. If so and if "sign" is non-zero, which indicates that
@@ -491,22 +525,25 @@ public class BCrypt {
          * that could be directly specified by a password to the buggy algorithm (and to
          * the fully correct one as well, but that's a side-effect).
          */
-        this.P[0] ^= sign;
+        P[0] ^= sign;
 
+        this.streamoff = 0;
+        lr[0] = 0;
+        lr[1] = 0;
         for (i = 0; i < plen; i += 2) {
-            lr[0] ^= streamtoword(data, doffp);
-            lr[1] ^= streamtoword(data, doffp);
+            lr[0] ^= streamtoword(data, data.length);
+            lr[1] ^= streamtoword(data, data.length);
             encipher(lr, 0);
-            this.P[i] = lr[0];
-            this.P[i + 1] = lr[1];
+            P[i] = lr[0];
+            P[i + 1] = lr[1];
         }
 
         for (i = 0; i < slen; i += 2) {
-            lr[0] ^= streamtoword(data, doffp);
-            lr[1] ^= streamtoword(data, doffp);
+            lr[0] ^= streamtoword(data, data.length);
+            lr[1] ^= streamtoword(data, data.length);
             encipher(lr, 0);
-            this.S[i] = lr[0];
-            this.S[i + 1] = lr[1];
+            S[i] = lr[0];
+            S[i + 1] = lr[1];
         }
     }
 
@@ -520,15 +557,17 @@ public class BCrypt {
     /**
      * Perform the central password hashing step in the bcrypt scheme
      * @param password the password to hash
+     * @param plen the length of the key material, password.length + 1 when a trailing
+     * NUL is part of the key
      * @param salt the binary salt to hash with the password
      * @param log_rounds the binary logarithm of the number of rounds of hashing to apply
      * @param sign_ext_bug true to implement the 2x bug
      * @param safety bit 16 is set when the safety measure is requested
-     * @return an array containing the binary hashed password
+     * @return this thread's buffer holding the binary hashed password
      */
-    private byte[] crypt_raw(byte password[], byte salt[], int log_rounds, boolean sign_ext_bug, int safety,
-                             boolean for_check) {
-        int cdata[] = bf_crypt_ciphertext.clone();
+    private byte[] crypt_raw(byte password[], int plen, byte salt[], int log_rounds, boolean sign_ext_bug,
+                             int safety, boolean for_check) {
+        final int cdata[] = this.cdata;
         int clen = cdata.length;
 
         long rounds;
@@ -553,19 +592,20 @@ public class BCrypt {
         }
 
         init_key();
-        ekskey(salt, password, sign_ext_bug, safety);
-        for (int i = 0; i < rounds; i++) {
-            key(password, sign_ext_bug, safety);
-            key(salt, false, safety);
+        ekskey(salt, password, plen, sign_ext_bug, safety);
+        for (long i = 0; i < rounds; i++) {
+            key(password, plen, sign_ext_bug);
+            key(salt, salt.length, false);
         }
 
+        System.arraycopy(bf_crypt_ciphertext, 0, cdata, 0, clen);
         for (int i = 0; i < 64; i++) {
             for (int j = 0; j < (clen >> 1); j++) {
                 encipher(cdata, j << 1);
             }
         }
 
-        byte[] ret = new byte[clen * 4];
+        final byte ret[] = this.hashed;
         for (int i = 0, j = 0; i < clen; i++) {
             ret[j++] = (byte) ((cdata[i] >> 24) & 0xff);
             ret[j++] = (byte) ((cdata[i] >> 16) & 0xff);
@@ -575,10 +615,6 @@ public class BCrypt {
         return ret;
     }
 
-    private static String hashpwforcheck(byte[] passwordb, String salt) {
-        return hashpw(passwordb, salt, true);
-    }
-
     /**
      * Hash a password using the OpenBSD bcrypt scheme
      * @param password the password to hash
@@ -600,16 +636,18 @@ public class BCrypt {
      * @return the hashed password
      */
     public static String hashpw(byte passwordb[], String salt) {
-        return hashpw(passwordb, salt, false);
+        return STATE.get().hash(passwordb, salt, false).toString();
     }
 
-    private static String hashpw(byte passwordb[], String salt, boolean for_check) {
-        BCrypt B;
-        String real_salt;
-        byte saltb[], hashed[];
+    /**
+     * Hash a password into this thread's string buffer. The returned builder is only
+     * valid until the next hash on the same thread.
+     */
+    private StringBuilder hash(byte passwordb[], String salt, boolean for_check) {
+        byte saltb[] = this.saltb, hashed[];
         char minor = (char) 0;
         int rounds, off;
-        StringBuilder rs = new StringBuilder();
+        StringBuilder rs = this.rs;
 
         if (salt == null) {
             throw new IllegalArgumentException("salt cannot be null");
@@ -643,18 +681,23 @@ public class BCrypt {
         if (off == 4 && saltLength < 29) {
             throw new IllegalArgumentException("Invalid salt");
         }
-        rounds = Integer.parseInt(salt.substring(off, off + 2));
+        rounds = parseRounds(salt, off);
 
-        real_salt = salt.substring(off + 3, off + 25);
-        saltb = decode_base64(real_salt, BCRYPT_SALT_LEN);
+        if (decode_base64(salt, off + 3, off + 25, saltb, BCRYPT_SALT_LEN) != BCRYPT_SALT_LEN) {
+            throw new IllegalArgumentException("Bad salt length");
+        }
 
-        if (minor >= 'a') {
-            passwordb = Arrays.copyOf(passwordb, passwordb.length + 1);
+        // $2a$ and later hash the trailing NUL as part of the key
+        int plen = minor >= 'a' ? passwordb.length + 1 : passwordb.length;
+        if (plen == 0) {
+            // $2$ with an empty password has no key material at all; the
+            // original cyclic stream failed here reading the first key byte
+            throw new ArrayIndexOutOfBoundsException("Index 0 out of bounds for length 0");
         }
 
-        B = new BCrypt();
-        hashed = B.crypt_raw(passwordb, saltb, rounds, minor == 'x', minor == 'a' ? 0x10000 : 0, for_check);
+        hashed = crypt_raw(passwordb, plen, saltb, rounds, minor == 'x', minor == 'a' ? 0x10000 : 0, for_check);
 
+        rs.setLength(0);
         rs.append("$2");
         if (minor >= 'a') {
             rs.append(minor);
@@ -667,7 +710,15 @@ public class BCrypt {
         rs.append("$");
         encode_base64(saltb, saltb.length, rs);
         encode_base64(hashed, bf_crypt_ciphertext.length * 4 - 1, rs);
-        return rs.toString();
+        return rs;
+    }
+
+    private static int parseRounds(String salt, int off) {
+        char tens = salt.charAt(off), ones = salt.charAt(off + 1);
+        if (tens >= '0' && tens <= '9' && ones >= '0' && ones <= '9') {
+            return (tens - '0') * 10 + (ones - '0');
+        }
+        return Integer.parseInt(salt.substring(off, off + 2));
     }
 
     /**
@@ -714,7 +765,7 @@ public class BCrypt {
      * @exception IllegalArgumentException if prefix or log_rounds is invalid
      */
     public static String gensalt(String prefix, int log_rounds) throws IllegalArgumentException {
-        return gensalt(prefix, log_rounds, new SecureRandom());
+        return gensalt(prefix, log_rounds, RANDOM);
     }
 
     /**
@@ -737,7 +788,7 @@ public class BCrypt {
      * @exception IllegalArgumentException if log_rounds is invalid
      */
     public static String gensalt(int log_rounds) throws IllegalArgumentException {
-        return gensalt(log_rounds, new SecureRandom());
+        return gensalt(log_rounds, RANDOM);
     }
 
     public static String gensalt(String prefix) {
@@ -761,22 +812,29 @@ public class BCrypt {
      */
     public static boolean checkpw(String plaintext, String hashed) {
         byte[] passwordb = plaintext.getBytes(StandardCharsets.UTF_8);
-        return equalsNoEarlyReturn(hashed, hashpwforcheck(passwordb, hashed));
+        return checkpw(passwordb, hashed);
     }
 
     /**
-     * Check that a password (as a byte array) matches a previously hashed one
+     * Check that a password (as a byte array) matches a previously hashed one. The
+     * candidate hash is built in a per-thread buffer and compared in place, so no
+     * intermediate String is created.
      * @param passwordb the password to verify, as a byte array
      * @param hashed the previously-hashed password
      * @return true if the passwords match, false otherwise
      * @since 5.3
      */
     public static boolean checkpw(byte[] passwordb, String hashed) {
-        return equalsNoEarlyReturn(hashed, hashpwforcheck(passwordb, hashed));
+        return equalsNoEarlyReturn(hashed, STATE.get().hash(passwordb, hashed, true));
     }
 
-    static boolean equalsNoEarlyReturn(String a, String b) {
-        return MessageDigest.isEqual(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+    static boolean equalsNoEarlyReturn(CharSequence a, CharSequence b) {
+        int alen = a.length(), blen = b.length();
+        int diff = alen ^ blen;
+        for (int i = 0; i < alen; i++) {
+            diff |= a.charAt(i) ^ (blen == 0 ? 0 : b.charAt(i % blen));
+        }
+        return diff == 0;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,134 @@
+package maa.restful.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Bersihin token yang udah expired dari table users dan sessions
+ * User yang gk pernah logout tokennya nyangkut terus di unique index users.token, bikin index-nya makin gede
+ *
+ * Dihapus per batch kecil (UPDATE / DELETE ... LIMIT), setiap batch transaksi sendiri (autocommit)
+ * terus jeda sebentar, jadi gk ada lock yang kepegang lama
+ * */
+
+@Slf4j
+@Component
+public class ExpiredTokenSweeper {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final int maxBatches;
+
+    private final long pauseMillis;
+
+    private final Counter usersCleared;
+
+    private final Counter sessionsDeleted;
+
+    private final AtomicLong lastRunRows = new AtomicLong();
+
+    // 1 thread, kalo sweep sebelumnya belum selesai jadwal berikutnya dilewatin
+    private final ThreadPoolExecutor worker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "token-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+
+    public ExpiredTokenSweeper(JdbcTemplate jdbcTemplate,
+                               @Value("${app.token-sweeper.enabled:true}") boolean enabled,
+                               @Value("${app.token-sweeper.batch-size:500}") int batchSize,
+                               @Value("${app.token-sweeper.max-batches:200}") int maxBatches,
+                               @Value("${app.token-sweeper.pause-ms:100}") long pauseMillis,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.pauseMillis = pauseMillis;
+        this.usersCleared = meterRegistry.counter("token.sweeper.rows", "table", "users");
+        this.sessionsDeleted = meterRegistry.counter("token.sweeper.rows", "table", "sessions");
+        meterRegistry.gauge("token.sweeper.last-run.rows", lastRunRows);
+    }
+
+    // Cuma nyerahin ke thread sendiri, loop batch + sleep-nya gk nahan thread scheduler
+    // (SlidingExpiry.flush, TokenRevocationList.refresh, LiveTokenFilter.rebuild tetep jalan tepat waktu)
+    @Scheduled(fixedDelayString = "${app.token-sweeper.interval-ms:300000}", initialDelayString = "${app.token-sweeper.interval-ms:300000}")
+    public void scheduleSweep() {
+        if (enabled) worker.execute(this::sweep);
+    }
+
+    public void sweep() {
+        if (!enabled) return;
+
+        long now = System.currentTimeMillis();
+        long start = System.nanoTime();
+
+        // token_expired_at ikut di-NULL-kan biar baris yang udah dibersihin gk kena range scan lagi
+        // (logout lama nyisain token_expired_at = 0, itu juga ikut kebersihin sekali)
+        int users = sweep("users", "UPDATE users SET token = NULL, token_expired_at = NULL WHERE token_expired_at < ? LIMIT ?", now, usersCleared);
+        int sessions = sweep("sessions", "DELETE FROM sessions WHERE expired_at < ? LIMIT ?", now, sessionsDeleted);
+
+        lastRunRows.set(users + sessions);
+        if (users + sessions > 0) {
+            log.info("Expired token sweep cleared {} users and {} sessions in {} ms",
+                    users, sessions, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private int sweep(String table, String sql, long now, Counter counter) {
+        int total = 0;
+        for (int batch = 1; batch <= maxBatches; batch++) {
+            int rows;
+            try {
+                rows = jdbcTemplate.update(sql, now, batchSize);
+            } catch (RuntimeException exception) {
+                log.warn("Expired token sweep on {} failed after {} rows", table, total, exception);
+                return total;
+            }
+
+            total += rows;
+            counter.increment(rows);
+            log.debug("Expired token sweep on {}: batch {} touched {} rows ({} total)", table, batch, rows, total);
+
+            // Batch terakhir gk penuh artinya udah habis
+            if (rows < batchSize) return total;
+
+            if (!pause()) return total;
+        }
+
+        log.info("Expired token sweep on {} stopped after {} batches, the rest will be cleared next run", table, maxBatches);
+        return total;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,249 @@
+package maa.restful.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import maa.restful.repository.UserRepository;
+import maa.restful.repository.UserSessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Filter buat nolak X-API-TOKEN ngasal / yang udah logout tanpa harus query ke database
+ * - Bloom filter isinya semua token yang masih hidup, kalo tokennya gk ada di bloom filter udah pasti gk valid
+ * - Recent misses isinya token yang baru aja gagal dicari / baru logout, biar gk query berkali-kali
+ *
+ * Bloom filter gk pernah false negative buat token yang dibikin lewat login di instance ini.
+ * Token yang dibikin di instance lain / ditulis langsung ke database baru kebaca setelah rebuild,
+ * jadi defaultnya mati, nyalain app.token-filter.enabled cuma kalo aplikasinya jalan 1 instance
+ * */
+
+@Slf4j
+@Component
+public class LiveTokenFilter {
+
+    private final UserRepository userRepository;
+
+    private final UserSessionRepository userSessionRepository;
+
+    private final boolean enabled;
+
+    private final int expectedTokens;
+
+    private final double falsePositiveRate;
+
+    private final int maxMisses;
+
+    private final long missTtlMillis;
+
+    private final Map<String, Long> recentMisses = new ConcurrentHashMap<>();
+
+    private volatile Bloom current;
+
+    // Kalo lagi rebuild, token baru juga dimasukin kesini
+    private volatile Bloom next;
+
+    private final Counter rejectedByBloom;
+
+    private final Counter rejectedByMisses;
+
+    private final Counter falsePositives;
+
+    public LiveTokenFilter(UserRepository userRepository,
+                           UserSessionRepository userSessionRepository,
+                           @Value("${app.token-filter.enabled:false}") boolean enabled,
+                           @Value("${app.token-filter.expected-tokens:100000}") int expectedTokens,
+                           @Value("${app.token-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                           @Value("${app.token-filter.max-misses:10000}") int maxMisses,
+                           @Value("${app.token-filter.miss-ttl-ms:600000}") long missTtlMillis,
+                           MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.userSessionRepository = userSessionRepository;
+        this.enabled = enabled;
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.maxMisses = maxMisses;
+        this.missTtlMillis = missTtlMillis;
+        this.rejectedByBloom = meterRegistry.counter("token.filter.rejected", "reason", "bloom");
+        this.rejectedByMisses = meterRegistry.counter("token.filter.rejected", "reason", "recent-miss");
+        this.falsePositives = meterRegistry.counter("token.filter.false-positives");
+        meterRegistry.gauge("token.filter.expected-fpp", this, LiveTokenFilter::expectedFalsePositiveRate);
+    }
+
+    // Isi bloom filter pertama kali, sebelum ini semua token dianggap "mungkin valid"
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) rebuild();
+    }
+
+    // Bangun ulang secara berkala biar token yang udah logout / expired kebuang dari bloom filter
+    @Scheduled(fixedDelayString = "${app.token-filter.rebuild-ms:600000}", initialDelayString = "${app.token-filter.rebuild-ms:600000}")
+    public void rebuild() {
+        if (!enabled) return;
+
+        Bloom bloom = new Bloom(expectedTokens, falsePositiveRate);
+        this.next = bloom;
+        try {
+            long now = System.currentTimeMillis();
+            for (String token : userRepository.findLiveTokens(now)) {
+                bloom.add(TokenHash.digest(token));
+            }
+            // Table sessions udah nyimpen SHA-256 nya, tinggal di-decode
+            for (String tokenHash : userSessionRepository.findLiveTokenHashes(now)) {
+                bloom.add(TokenHash.fromHex(tokenHash));
+            }
+            this.current = bloom;
+        } catch (RuntimeException exception) {
+            log.warn("Failed to rebuild live token filter", exception);
+        } finally {
+            this.next = null;
+        }
+    }
+
+    // true artinya token udah pasti gk valid, gk perlu cek ke database
+    public boolean rejects(String token) {
+        Bloom bloom = this.current;
+        if (!enabled || bloom == null) return false;
+
+        Long missExpiresAt = recentMisses.get(token);
+        if (missExpiresAt != null) {
+            if (missExpiresAt >= System.currentTimeMillis()) {
+                rejectedByMisses.increment();
+                return true;
+            }
+            recentMisses.remove(token, missExpiresAt);
+        }
+
+        if (!bloom.mightContain(TokenHash.digest(token))) {
+            rejectedByBloom.increment();
+            return true;
+        }
+        return false;
+    }
+
+    // Dipanggil kalo bloom filter bilang "mungkin ada" tapi ternyata di database gk ada
+    public void recordMiss(String token) {
+        if (!enabled || this.current == null) return;
+
+        falsePositives.increment();
+        remember(token);
+    }
+
+    // Tokennya ada di database tapi udah expired, bukan false positive, cukup diinget biar gk query lagi
+    public void recordExpired(String token) {
+        if (!enabled || this.current == null) return;
+
+        remember(token);
+    }
+
+    // Token baru dari login, dimasukin setelah commit biar rebuild yang lagi jalan pasti kebagian
+    public void add(String token) {
+        if (!enabled || token == null) return;
+        afterCommit(() -> {
+            // Baca next dulu baru current, biar gk kelewatan kalo rebuild selesai di tengah-tengah
+            byte[] digest = TokenHash.digest(token);
+            Bloom rebuilding = this.next;
+            if (rebuilding != null) rebuilding.add(digest);
+            Bloom bloom = this.current;
+            if (bloom != null) bloom.add(digest);
+            recentMisses.remove(token);
+        });
+    }
+
+    // Token yang logout gk bisa dihapus dari bloom filter, jadi dicatat di recent misses
+    public void revoke(String token) {
+        if (!enabled || token == null) return;
+        afterCommit(() -> remember(token));
+    }
+
+    public double expectedFalsePositiveRate() {
+        Bloom bloom = this.current;
+        return bloom == null ? 0.0 : bloom.expectedFalsePositiveRate();
+    }
+
+    private void remember(String token) {
+        long now = System.currentTimeMillis();
+        if (recentMisses.size() >= maxMisses) {
+            Iterator<Map.Entry<String, Long>> iterator = recentMisses.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Long> entry = iterator.next();
+                if (entry.getValue() < now || recentMisses.size() >= maxMisses) {
+                    iterator.remove();
+                }
+            }
+        }
+        recentMisses.put(token, now + missTtlMillis);
+    }
+
+    private void afterCommit(Runnable runnable) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        } else {
+            runnable.run();
+        }
+    }
+
+    private static class Bloom {
+
+        private final AtomicLongArray bits;
+
+        private final long bitSize;
+
+        private final int hashCount;
+
+        private final AtomicLong bitsSet = new AtomicLong();
+
+        Bloom(int expectedInsertions, double falsePositiveRate) {
+            long size = (long) (-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bitSize = Math.max(64, size);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+            this.bits = new AtomicLongArray((int) ((bitSize + 63) / 64));
+        }
+
+        // Double hashing dari SHA-256, index ke-i = h1 + i * h2
+        void add(byte[] digest) {
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            long h1 = buffer.getLong(0);
+            long h2 = buffer.getLong(8);
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitSize);
+                long mask = 1L << index;
+                int word = (int) (index >>> 6);
+                long previous = bits.getAndAccumulate(word, mask, (value, bit) -> value | bit);
+                if ((previous & mask) == 0) bitsSet.incrementAndGet();
+            }
+        }
+
+        boolean mightContain(byte[] digest) {
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            long h1 = buffer.getLong(0);
+            long h2 = buffer.getLong(8);
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitSize);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) return false;
+            }
+            return true;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow((double) bitsSet.get() / bitSize, hashCount);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package maa.restful.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Token bucket buat POST /api/auth/login, per username dan per IP
+ * Dicek sebelum query user dan BCrypt, jadi brute force / credential stuffing gk makan CPU
+ *
+ * Bucket disimpen di AtomicLongArray ukuran tetap (striped), key di-hash ke salah satu slot, jadi memory gk nambah
+ * Kalo 2 key kebetulan dapet slot yang sama, mereka berbagi bucket (jadi lebih ketat, gk lebih longgar)
+ * Login yang berhasil tokennya dibalikin, jadi yang kehitung cuma percobaan yang gagal
+ * IP diambil dari getRemoteAddr(), di belakang proxy diisi dari X-Forwarded-For (server.forward-headers-strategy)
+ * Isi 1 slot: [42 bit waktu refill terakhir (ms)] [22 bit sisa token dalam satuan 1/1000]
+ * */
+
+@Component
+public class LoginThrottle {
+
+    private static final int TOKEN_BITS = 22;
+
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+    private static final long ONE = 1000;
+
+    private final boolean enabled;
+
+    private final Buckets usernames;
+
+    private final Buckets addresses;
+
+    // Seed random per proses, biar orang luar gk bisa nebak username mana yang satu slot
+    private final int seed = ThreadLocalRandom.current().nextInt();
+
+    private final Counter rejectedByUsername;
+
+    private final Counter rejectedByAddress;
+
+    public LoginThrottle(@Value("${app.login-throttle.enabled:true}") boolean enabled,
+                         @Value("${app.login-throttle.stripes:65536}") int stripes,
+                         @Value("${app.login-throttle.username.capacity:10}") int usernameCapacity,
+                         @Value("${app.login-throttle.username.per-minute:5}") int usernamePerMinute,
+                         @Value("${app.login-throttle.address.capacity:30}") int addressCapacity,
+                         @Value("${app.login-throttle.address.per-minute:30}") int addressPerMinute,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.usernames = new Buckets(stripes, usernameCapacity, usernamePerMinute);
+        this.addresses = new Buckets(stripes, addressCapacity, addressPerMinute);
+        this.rejectedByUsername = meterRegistry.counter("login.throttle.rejected", "key", "username");
+        this.rejectedByAddress = meterRegistry.counter("login.throttle.rejected", "key", "address");
+    }
+
+    // Lempar 429 kalo username / IP ini udah kebanyakan nyoba login
+    public void check(String username, String address) {
+        if (!enabled) return;
+
+        // IP duluan, biar satu IP yang nyoba banyak username gk ngabisin bucket username orang lain
+        if (address != null && !addresses.tryAcquire(hash(address))) {
+            rejectedByAddress.increment();
+            throw tooManyRequests();
+        }
+
+        if (username != null && !usernames.tryAcquire(hash(username.toLowerCase(Locale.ROOT)))) {
+            rejectedByUsername.increment();
+            throw tooManyRequests();
+        }
+    }
+
+    // Login berhasil, token yang dipake check() dibalikin biar user yang bener gk ikut ke-throttle
+    public void succeeded(String username, String address) {
+        if (!enabled) return;
+
+        if (address != null) addresses.refund(hash(address));
+        if (username != null) usernames.refund(hash(username.toLowerCase(Locale.ROOT)));
+    }
+
+    private ResponseStatusException tooManyRequests() {
+        return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts, please try again later");
+    }
+
+    private int hash(String key) {
+        int h = key.hashCode() ^ seed;
+        h *= 0x9E3779B1;
+        return h ^ (h >>> 16);
+    }
+
+    private static class Buckets {
+
+        private final AtomicLongArray slots;
+
+        private final int mask;
+
+        private final long capacity;
+
+        private final long perMinute;
+
+        Buckets(int stripes, int capacity, int perMinute) {
+            int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+            this.slots = new AtomicLongArray(size);
+            this.mask = size - 1;
+            this.capacity = Math.min(capacity * ONE, TOKEN_MASK);
+            this.perMinute = perMinute;
+        }
+
+        boolean tryAcquire(int hash) {
+            int index = hash & mask;
+            long now = System.currentTimeMillis();
+            while (true) {
+                long state = slots.get(index);
+
+                // Slot kosong (0) artinya bucket masih penuh
+                long tokens = state == 0 ? capacity : state & TOKEN_MASK;
+                long refilledAt = state == 0 ? now : state >>> TOKEN_BITS;
+
+                // Waktu refill cuma dimajuin sesuai token yang nambah, biar sisa pecahan gk ilang
+                long added = Math.max(0, now - refilledAt) * perMinute * ONE / 60_000;
+                if (tokens + added >= capacity) {
+                    tokens = capacity;
+                    refilledAt = now;
+                } else if (added > 0) {
+                    tokens += added;
+                    refilledAt += added * 60_000 / (perMinute * ONE);
+                }
+                if (tokens < ONE) return false;
+
+                long next = (refilledAt << TOKEN_BITS) | (tokens - ONE);
+                if (slots.compareAndSet(index, state, next)) return true;
+            }
+        }
+
+        // Balikin 1 token, gk boleh lebih dari capacity
+        void refund(int hash) {
+            int index = hash & mask;
+            while (true) {
+                long state = slots.get(index);
+
+                // Slot kosong udah penuh, gk ada yang perlu dibalikin
+                if (state == 0) return;
+
+                long tokens = Math.min(capacity, (state & TOKEN_MASK) + ONE);
+                long next = (state & ~TOKEN_MASK) | tokens;
+                if (slots.compareAndSet(index, state, next)) return;
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package maa.restful.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/*
+ * BCrypt itu sengaja dibikin berat, jadi jangan dijalanin langsung di thread Tomcat
+ * Semua hashing masuk ke thread pool sendiri (jumlah thread = jumlah core) dengan antrian terbatas
+ * Kalo antriannya penuh langsung ditolak 503, biar endpoint lain (contacts, addresses) tetep jalan
+ *
+ * Cost (log rounds) BCrypt dipilih pas startup sesuai app.password.hash-budget-ms,
+ * jadi waktu login tetep kurang lebih sama walaupun pindah ke mesin yang lebih cepet / lambat
+ * */
+
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private final ThreadPoolExecutor executor;
+
+    private final long timeoutMillis;
+
+    private final Timer waitTimer;
+
+    private final Counter rejected;
+
+    private final Counter rehashed;
+
+    private final int logRounds;
+
+    public PasswordHasher(@Value("${app.password.threads:0}") int threads,
+                          @Value("${app.password.queue-size:64}") int queueSize,
+                          @Value("${app.password.timeout-ms:5000}") long timeoutMillis,
+                          @Value("${app.password.log-rounds:0}") int logRounds,
+                          @Value("${app.password.hash-budget-ms:250}") long budgetMillis,
+                          @Value("${app.password.min-log-rounds:10}") int minLogRounds,
+                          @Value("${app.password.max-log-rounds:16}") int maxLogRounds,
+                          MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMillis = timeoutMillis;
+        this.waitTimer = meterRegistry.timer("password.hash.wait");
+        this.rejected = meterRegistry.counter("password.hash.rejected");
+        this.rehashed = meterRegistry.counter("password.rehashed");
+        this.logRounds = logRounds > 0 ? logRounds : calibrate(budgetMillis, minLogRounds, maxLogRounds);
+        meterRegistry.gauge("password.hash.log-rounds", this, hasher -> hasher.logRounds);
+        meterRegistry.gauge("password.hash.queue.depth", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("password.hash.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    public String hash(String password) {
+        return run(() -> BCrypt.hashpw(password, BCrypt.gensalt(logRounds)));
+    }
+
+    public boolean matches(String password, String hashed) {
+        return run(() -> BCrypt.checkpw(password, hashed));
+    }
+
+    // Hash lama yang cost-nya beda sama target harus dihash ulang
+    public boolean needsRehash(String hashed) {
+        return logRoundsOf(hashed) != logRounds;
+    }
+
+    // Hash ulang di background, kalo pool lagi sibuk dilewatin aja (nanti dicoba lagi pas login berikutnya)
+    // Baru disubmit setelah transaksi login commit, biar gk balapan sama save di login
+    public void rehashLater(String password, Consumer<String> onRehashed) {
+        afterCommit(() -> submitRehash(password, onRehashed));
+    }
+
+    private void submitRehash(String password, Consumer<String> onRehashed) {
+        try {
+            executor.execute(() -> {
+                try {
+                    onRehashed.accept(BCrypt.hashpw(password, BCrypt.gensalt(logRounds)));
+                    rehashed.increment();
+                } catch (RuntimeException exception) {
+                    log.warn("Failed to rehash password", exception);
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // Pool penuh, prioritas buat request yang lagi nunggu
+        }
+    }
+
+    public int getLogRounds() {
+        return logRounds;
+    }
+
+    // Format hash : $2a$10$..., ambil angka setelah tanda $ kedua
+    static int logRoundsOf(String hashed) {
+        int start = hashed.indexOf('$', 1) + 1;
+        if (start <= 0 || hashed.length() < start + 2) return -1;
+        try {
+            return Integer.parseInt(hashed.substring(start, start + 2));
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    // Ukur waktu hash di cost minimal, trus cari cost paling gede yang masih masuk budget (tiap naik 1 waktunya 2x lipat)
+    private static int calibrate(long budgetMillis, int minLogRounds, int maxLogRounds) {
+        BCrypt.hashpw("calibrate", BCrypt.gensalt(BCrypt.MIN_LOG_ROUNDS)); // warm up
+
+        long start = System.nanoTime();
+        BCrypt.hashpw("calibrate", BCrypt.gensalt(minLogRounds));
+        double millis = (System.nanoTime() - start) / 1_000_000.0;
+
+        int rounds = minLogRounds;
+        while (rounds < maxLogRounds && millis * 2 <= budgetMillis) {
+            millis *= 2;
+            rounds++;
+        }
+
+        log.info("Using BCrypt log rounds {} (~{} ms per hash, budget {} ms)", rounds, Math.round(millis), budgetMillis);
+        return rounds;
+    }
+
+    private <T> T run(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                // Catat berapa lama nunggu di antrian sebelum mulai dihash
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return task.call();
+            });
+        } catch (RejectedExecutionException exception) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, please try again later");
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException exception) {
+            future.cancel(true);
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, please try again later");
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, please try again later");
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+
+    private void afterCommit(Runnable runnable) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        } else {
+            runnable.run();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
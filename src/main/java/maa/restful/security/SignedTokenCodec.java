@@ -0,0 +1,97 @@
+package maa.restful.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/*
+ * Token yang isinya username + expired + id, ditandatangani make HMAC-SHA256
+ * Format : v1.{base64(username)}.{expiredAt}.{id}.{base64(signature)}
+ * Jadi UserArgumentResolver cukup verifikasi signature tanpa nanya ke database
+ * */
+
+@Component
+public class SignedTokenCodec {
+
+    private static final String PREFIX = "v1.";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final SecretKeySpec key;
+
+    // Mac gk thread safe dan mahal kalo dibikin terus, jadi satu per thread
+    private final ThreadLocal<Mac> macs;
+
+    public SignedTokenCodec(@Value("${app.auth.signing-secret:}") String secret) {
+        this.key = secret.isEmpty() ? null : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException exception) {
+                throw new IllegalStateException(exception);
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return key != null;
+    }
+
+    public boolean isSigned(String token) {
+        return token.startsWith(PREFIX);
+    }
+
+    public String issue(String username, long expiredAt) {
+        if (!isEnabled()) throw new IllegalStateException("app.auth.signing-secret is not configured");
+
+        byte[] id = new byte[16];
+        random.nextBytes(id);
+
+        String payload = PREFIX + ENCODER.encodeToString(username.getBytes(StandardCharsets.UTF_8))
+                + "." + expiredAt
+                + "." + ENCODER.encodeToString(id);
+        return payload + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    // Return null kalo formatnya salah atau signaturenya gk cocok
+    public Claims verify(String token) {
+        if (!isEnabled() || !isSigned(token)) return null;
+
+        int signatureAt = token.lastIndexOf('.');
+        String payload = token.substring(0, signatureAt);
+        String[] parts = payload.split("\\.");
+        if (parts.length != 4) return null;
+
+        try {
+            byte[] signature = DECODER.decode(token.substring(signatureAt + 1));
+            if (!MessageDigest.isEqual(signature, sign(payload))) return null;
+
+            String username = new String(DECODER.decode(parts[1]), StandardCharsets.UTF_8);
+            return new Claims(parts[3], username, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+    }
+
+    private byte[] sign(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public record Claims(String id, String username, long expiredAt) {
+    }
+}
@@ -0,0 +1,142 @@
+package maa.restful.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Sliding expiry, token yang masih dipake expired-nya terus dimundurin
+ * - UserArgumentResolver cuma manggil touch(), gk ada query di request
+ * - Perpanjangan per token paling banyak 1x per window, sisanya diabaikan
+ * - Yang antri di-flush berkala pake batch UPDATE
+ *
+ * Signed token gk bisa diperpanjang karena expired-nya ada di dalam token
+ * */
+
+@Slf4j
+@Component
+public class SlidingExpiry {
+
+    private static final String UPDATE_USERS = "UPDATE users SET token_expired_at = ? WHERE token = ? AND token_expired_at < ?";
+
+    private static final String UPDATE_SESSIONS = "UPDATE sessions SET expired_at = ? WHERE token_hash = ? AND expired_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final boolean enabled;
+
+    private final boolean sessionMode;
+
+    private final long ttlMillis;
+
+    private final long windowMillis;
+
+    private final int maxPending;
+
+    private final int batchSize;
+
+    // token -> expired baru yang nunggu ditulis
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    // token -> expired terakhir yang udah diantriin, buat ngecek window
+    private final Map<String, Long> refreshed = new ConcurrentHashMap<>();
+
+    private final Counter queued;
+
+    private final Counter dropped;
+
+    private final Counter written;
+
+    public SlidingExpiry(JdbcTemplate jdbcTemplate,
+                         @Value("${app.auth.sliding-expiry.enabled:false}") boolean enabled,
+                         @Value("${app.auth.token-mode:uuid}") String tokenMode,
+                         @Value("${app.auth.sliding-expiry.ttl-ms:604800000}") long ttlMillis,
+                         @Value("${app.auth.sliding-expiry.window-ms:300000}") long windowMillis,
+                         @Value("${app.auth.sliding-expiry.max-pending:10000}") int maxPending,
+                         @Value("${app.auth.sliding-expiry.batch-size:500}") int batchSize,
+                         MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled && !"signed".equals(tokenMode);
+        this.sessionMode = "session".equals(tokenMode);
+        this.ttlMillis = ttlMillis;
+        this.windowMillis = windowMillis;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.queued = meterRegistry.counter("token.sliding.queued");
+        this.dropped = meterRegistry.counter("token.sliding.dropped");
+        this.written = meterRegistry.counter("token.sliding.written");
+        meterRegistry.gaugeMapSize("token.sliding.pending", Tags.empty(), pending);
+    }
+
+    // Dipanggil setiap token berhasil dipake, tokenExpiredAt boleh null kalo gk tau (misal dari cache)
+    public void touch(String token, Long tokenExpiredAt) {
+        if (!enabled) return;
+
+        long now = System.currentTimeMillis();
+        long known = Math.max(tokenExpiredAt == null ? 0L : tokenExpiredAt, refreshed.getOrDefault(token, 0L));
+        long expiredAt = now + ttlMillis;
+
+        // Masih di dalam window, gk perlu diperpanjang lagi
+        if (expiredAt - known < windowMillis) return;
+
+        if (pending.size() >= maxPending && !pending.containsKey(token)) {
+            dropped.increment();
+            return;
+        }
+
+        if (refreshed.size() >= maxPending * 4) {
+            trim(now);
+        }
+        pending.put(token, expiredAt);
+        refreshed.put(token, expiredAt);
+        queued.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.sliding-expiry.flush-ms:5000}", initialDelayString = "${app.auth.sliding-expiry.flush-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        List<Object[]> batch = new ArrayList<>(Math.min(pending.size(), maxPending));
+        for (Map.Entry<String, Long> entry : pending.entrySet()) {
+            // Kalo barusan diganti sama touch() lain, biarin buat flush berikutnya
+            if (!pending.remove(entry.getKey(), entry.getValue())) continue;
+            String key = sessionMode ? TokenHash.hex(entry.getKey()) : entry.getKey();
+            batch.add(new Object[]{entry.getValue(), key, entry.getValue()});
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(sessionMode ? UPDATE_SESSIONS : UPDATE_USERS, batch, batchSize, (statement, args) -> {
+                statement.setLong(1, (Long) args[0]);
+                statement.setString(2, (String) args[1]);
+                statement.setLong(3, (Long) args[2]);
+            });
+            written.increment(batch.size());
+        } catch (RuntimeException exception) {
+            // Gagal nulis, lupain aja biar di touch() berikutnya diantriin ulang
+            log.warn("Failed to flush {} sliding expiry updates", batch.size(), exception);
+            refreshed.clear();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private void trim(long now) {
+        // Yang udah expired dibuang dulu, kalo masih kebanyakan kosongin aja (paling cuma nambah 1 write per token)
+        refreshed.values().removeIf(expiredAt -> expiredAt < now);
+        if (refreshed.size() >= maxPending * 4) refreshed.clear();
+    }
+}
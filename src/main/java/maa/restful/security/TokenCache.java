@@ -0,0 +1,137 @@
+package maa.restful.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import maa.restful.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Cache token -> User di memory, biar UserArgumentResolver gk perlu query findFirstByToken setiap request
+ * Jumlah entry dibatasi (max-size) dan setiap entry punya TTL yang gk boleh lewat dari tokenExpiredAt
+ * */
+
+@Component
+public class TokenCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    private final long ttlMillis;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter evictions;
+
+    public TokenCache(@Value("${app.token-cache.max-size:10000}") int maxSize,
+                      @Value("${app.token-cache.ttl-ms:60000}") long ttlMillis,
+                      MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.hits = meterRegistry.counter("token.cache.hits");
+        this.misses = meterRegistry.counter("token.cache.misses");
+        this.evictions = meterRegistry.counter("token.cache.evictions");
+        meterRegistry.gaugeMapSize("token.cache.size", Tags.empty(), entries);
+    }
+
+    // Return copy dari User yang disimpan, null kalo gk ada / udah expired
+    public User get(String token) {
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            if (entries.remove(token, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return copy(entry.user);
+    }
+
+    public void put(User user) {
+        if (user.getToken() == null || user.getTokenExpiredAt() == null) return;
+        put(user.getToken(), user, user.getTokenExpiredAt());
+    }
+
+    // Buat token yang gk disimpen di users.token (misalnya session), expired-nya dikasih dari luar
+    public void put(String token, User user, long tokenExpiredAt) {
+        // Entry gk boleh hidup lebih lama dari masa berlaku tokennya
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(now + ttlMillis, tokenExpiredAt);
+        if (expiresAt <= now) return;
+
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        entries.put(token, new Entry(copy(user), expiresAt));
+    }
+
+    public void invalidate(String token) {
+        if (token == null) return;
+        entries.remove(token);
+
+        // Hapus lagi setelah commit, biar request lain yang sempet baca data lama dari database gk nyimpen ulang ke cache
+        afterCommit(() -> entries.remove(token));
+    }
+
+    // Hapus semua token punya user ini, soalnya 1 user bisa punya banyak session
+    public void invalidateUser(String username) {
+        if (username == null) return;
+        entries.values().removeIf(entry -> username.equals(entry.user.getUsername()));
+        afterCommit(() -> entries.values().removeIf(entry -> username.equals(entry.user.getUsername())));
+    }
+
+    private void afterCommit(Runnable runnable) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        }
+    }
+
+    private void evict(long now) {
+        // Buang yang expired dulu
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().expiresAt < now) {
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+
+        // Kalo masih penuh, buang entry sembarang sampai ada tempat
+        iterator = entries.entrySet().iterator();
+        while (entries.size() >= maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    // User yang disimpan di cache gk boleh dipake bareng-bareng antar request, makanya selalu dicopy
+    private User copy(User user) {
+        return new User(user.getUsername(), user.getPassword(), user.getName(), user.getToken(), user.getTokenExpiredAt(), null);
+    }
+
+    private record Entry(User user, long expiresAt) {
+    }
+}
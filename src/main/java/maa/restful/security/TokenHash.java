@@ -0,0 +1,32 @@
+package maa.restful.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/*
+ * SHA-256 dari token, dipake sebagai primary key table sessions dan buat index LiveTokenFilter
+ * Jadi token aslinya gk pernah disimpen di database
+ * */
+public final class TokenHash {
+
+    private TokenHash() {
+    }
+
+    public static byte[] digest(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    public static String hex(String token) {
+        return HexFormat.of().formatHex(digest(token));
+    }
+
+    public static byte[] fromHex(String hex) {
+        return HexFormat.of().parseHex(hex);
+    }
+}
@@ -0,0 +1,51 @@
+package maa.restful.security;
+
+import jakarta.transaction.Transactional;
+import maa.restful.entity.RevokedToken;
+import maa.restful.repository.RevokedTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Daftar id signed token yang udah logout
+ * Disimpen di table revoked_tokens biar instance lain juga tau, dan dicopy ke memory biar ngeceknya gk perlu query
+ * Isinya cuma token yang belum expired, jadi ukurannya kecil
+ * */
+
+@Component
+public class TokenRevocationList {
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    public boolean isRevoked(String id) {
+        return revoked.containsKey(id);
+    }
+
+    @Transactional
+    public void revoke(SignedTokenCodec.Claims claims) {
+        revoked.put(claims.id(), claims.expiredAt());
+        revokedTokenRepository.save(new RevokedToken(claims.id(), claims.expiredAt()));
+    }
+
+    // Ambil revocation dari instance lain, sekalian buang yang udah expired
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.auth.revocation-refresh-ms:30000}", initialDelayString = "${app.auth.revocation-refresh-ms:30000}")
+    @Transactional
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        revokedTokenRepository.deleteExpired(now);
+        for (RevokedToken token : revokedTokenRepository.findAllByExpiredAtGreaterThan(now)) {
+            revoked.put(token.getId(), token.getExpiredAt());
+        }
+        revoked.values().removeIf(expiredAt -> expiredAt < now);
+    }
+}
@@ -1,7 +1,8 @@
 package maa.restful.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.transaction.Transactional;
 import maa.restful.entity.Address;
 import maa.restful.entity.Contact;
 import maa.restful.entity.User;
@@ -12,6 +13,7 @@ import maa.restful.repository.AddressRepository;
 import maa.restful.repository.ContactRepository;
 import maa.restful.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -19,10 +21,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.UUID;
 
 @Service
@@ -40,14 +43,27 @@ public class AddressService {
     @Autowired
     UserRepository userRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.address.batch.max-size:1000}")
+    private int batchMaxSize;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
+
     private Address getAddressByUserAndContactIdAndAddressId(User user, String contactId, String addressId) {
-        // Check apakah contactnya ada?
-        Contact contact = contactRepository.findFirstByUserAndId(user, contactId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,"Contact is not found"));
+        // Contact sama address dicek sekaligus dalam 1 query
+        return addressRepository.findOwned(user.getUsername(), contactId, addressId)
+                .orElseThrow(() -> notFound(user, contactId));
+    }
 
-        // Check apakah addressnya ada?
-        return addressRepository.findFirstByContactAndId(contact, addressId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,"Address is not found"));
+    // Query tambahan cuma pas gagal, buat bedain contact yang gk ada sama address yang gk ada
+    private ResponseStatusException notFound(User user, String contactId) {
+        if (!contactRepository.existsByUserAndId(user, contactId)) {
+            return new ResponseStatusException(HttpStatus.NOT_FOUND,"Contact is not found");
+        }
+        return new ResponseStatusException(HttpStatus.NOT_FOUND,"Address is not found");
     }
 
     private AddressResponse toAddressResponse(Address address) {
@@ -85,6 +101,53 @@ public class AddressService {
         return toAddressResponse(address);
     }
 
+    // Banyak address sekaligus: semua divalidasi dulu, contact dicek sekali, INSERT-nya dikirim per batch JDBC
+    @Transactional
+    public List<AddressResponse> createAll(User user, String contactId, List<CreateAddressRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Addresses must not be empty");
+        }
+        if (requests.size() > batchMaxSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Too many addresses, max " + batchMaxSize);
+        }
+
+        for (CreateAddressRequest request : requests) {
+            request.setContactId(contactId);
+            validationService.validate(request);
+        }
+
+        if (!contactRepository.existsByUserAndId(user, contactId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,"Contact is not found");
+        }
+
+        // Cuma reference buat foreign key, gk query lagi
+        Contact contact = contactRepository.getReferenceById(contactId);
+
+        List<AddressResponse> responses = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            CreateAddressRequest request = requests.get(i);
+            Address address = new Address();
+            address.setId(UUID.randomUUID().toString());
+            address.setStreet(request.getStreet());
+            address.setCity(request.getCity());
+            address.setProvince(request.getProvince());
+            address.setPostalCode(request.getPostalCode());
+            address.setCountry(request.getCountry());
+            address.setContact(contact);
+
+            // persist, bukan save(): id-nya udah diisi jadi save() bakal merge (SELECT dulu per address)
+            entityManager.persist(address);
+            responses.add(toAddressResponse(address));
+
+            // Kirim per hibernate.jdbc.batch_size, persistence context dikosongin biar gk numpuk
+            if ((i + 1) % jdbcBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        return responses;
+    }
+
     @Transactional
     public AddressResponse update(User user, UpdateAddressRequest request) {
         validationService.validate(request);
@@ -110,29 +173,30 @@ public class AddressService {
         return toAddressResponse(address);
     }
 
+    @Transactional(readOnly = true)
     public AddressResponse get(User user, String contactId, String addressId) {
-        Address address = getAddressByUserAndContactIdAndAddressId(user, contactId, addressId);
-
-        return toAddressResponse(address);
+        return addressRepository.findOwnedResponse(user.getUsername(), contactId, addressId)
+                .orElseThrow(() -> notFound(user, contactId));
     }
 
     @Transactional
     public String delete(User user, String contactId, String addressId) {
-        Address address = getAddressByUserAndContactIdAndAddressId(user, contactId, addressId);
-
-        addressRepository.delete(address);
+        // Langsung DELETE, gk di-load dulu
+        if (addressRepository.deleteOwned(user.getUsername(), contactId, addressId) == 0) {
+            throw notFound(user, contactId);
+        }
         return "OK";
     }
 
+    // Read only: gk ada flush / dirty checking, datanya langsung diambil jadi AddressResponse
+    @Transactional(readOnly = true)
     public List<AddressResponse> lists(User user, String contactId) {
-        Contact contact = contactRepository.findFirstByUserAndId(user,contactId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,"Contact is not found"));
-
-        List<Address> addresses = addressRepository.findAllByContact(contact);
+        List<AddressResponse> addresses = addressRepository.findOwnedResponses(user.getUsername(), contactId);
 
-        // Convert List<Address> menjadi List<AddressResponse>
-        return addresses.stream()
-                .map(this::toAddressResponse)
-                .toList();
+        // Hasil kosong bisa karena contact-nya gk punya address, atau contact-nya gk ada
+        if (addresses.isEmpty() && !contactRepository.existsByUserAndId(user, contactId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,"Contact is not found");
+        }
+        return addresses;
     }
 }
@@ -1,14 +1,25 @@
 package maa.restful.service;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 import maa.restful.entity.User;
+import maa.restful.entity.UserSession;
 import maa.restful.model.LoginUserRequest;
 import maa.restful.model.TokenResponse;
 import maa.restful.repository.UserRepository;
-import maa.restful.security.BCrypt;
+import maa.restful.repository.UserSessionRepository;
+import maa.restful.security.LiveTokenFilter;
+import maa.restful.security.PasswordHasher;
+import maa.restful.security.SignedTokenCodec;
+import maa.restful.security.TokenRevocationList;
+import maa.restful.security.TokenCache;
+import maa.restful.security.TokenHash;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Date;
@@ -23,24 +34,103 @@ public class AuthService {
     @Autowired
     private UserRepository userRepository;
 
-    @Transactional
+    @Autowired
+    private TokenCache tokenCache;
+
+    @Autowired
+    private LiveTokenFilter liveTokenFilter;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private SignedTokenCodec signedTokenCodec;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // uuid = token random disimpen di table users, session = hash token disimpen di table sessions (boleh login di banyak device),
+    // signed = token HMAC yang gk perlu disimpen
+    @Value("${app.auth.token-mode:uuid}")
+    private String tokenMode;
+
+    @PostConstruct
+    void checkTokenMode() {
+        if ("signed".equals(tokenMode) && !signedTokenCodec.isEnabled()) {
+            throw new IllegalStateException("app.auth.token-mode=signed requires app.auth.signing-secret");
+        }
+    }
+
+    // Gk @Transactional: selama nunggu antrian PasswordHasher gk boleh ada koneksi database yang kepegang,
+    // kalo gk, badai login bisa ngabisin pool Hikari dan API lain ikut macet
     public TokenResponse login(LoginUserRequest request) throws Exception {
         // Validation
         validationService.validate(request);
 
-        // Cek user ada atau tidak
-        User user = userRepository.findById(request.getUsername())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Username or Password is Wrong"));
+        // Cek user ada atau tidak, lewat JdbcTemplate biar koneksinya langsung balik ke pool
+        // (lewat repository koneksinya ditahan EntityManager open-in-view sampe request selesai)
+        Credentials credentials = findCredentials(request.getUsername());
+        if (credentials == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Username or Password is Wrong");
+        }
 
         // Cek password benar atau tidak
-        if (!BCrypt.checkpw(request.getPassword(),user.getPassword())) {
+        if (!passwordHasher.matches(request.getPassword(), credentials.password())) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,"Username or Password is Wrong");
         }
 
+        // Signed token gk perlu nulis ke database sama sekali
+        if ("signed".equals(tokenMode)) {
+            rehashIfNeeded(request.getPassword(), credentials);
+            Long expiredAt = next7Days();
+            return TokenResponse.builder()
+                    .token(signedTokenCodec.issue(credentials.username(), expiredAt))
+                    .tokenExpiredAt(expiredAt)
+                    .build();
+        }
+
+        // Password udah bener, baru buka transaksi pendek buat nyimpen token
+        return transactionTemplate.execute(status -> {
+            // Didaftarin di dalem transaksi, jadi rehash baru jalan setelah token kesimpen (afterCommit)
+            rehashIfNeeded(request.getPassword(), credentials);
+            return issueToken(credentials.username());
+        });
+    }
+
+    private TokenResponse issueToken(String username) {
+        // Session baru ditambahin ke table sessions, token lain punya user ini tetep berlaku
+        if ("session".equals(tokenMode)) {
+            String token = UUID.randomUUID().toString();
+            Long expiredAt = next7Days();
+            userSessionRepository.save(new UserSession(TokenHash.hex(token), username, expiredAt));
+            liveTokenFilter.add(token);
+            return TokenResponse.builder()
+                    .token(token)
+                    .tokenExpiredAt(expiredAt)
+                    .build();
+        }
+
+        // Usernya bisa aja kehapus pas lagi BCrypt
+        User user = userRepository.findById(username)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Username or Password is Wrong"));
+
+        // Token lama udah gk berlaku, buang dari cache
+        tokenCache.invalidate(user.getToken());
+
         // Simpan data
         user.setToken(UUID.randomUUID().toString());
         user.setTokenExpiredAt(next7Days());
         userRepository.save(user);
+        liveTokenFilter.add(user.getToken());
 
         return TokenResponse.builder()
                 .token(user.getToken())
@@ -48,9 +138,47 @@ public class AuthService {
                 .build();
     }
 
+    // Kalo cost hash-nya beda sama target, hash ulang di background
+    private void rehashIfNeeded(String password, Credentials credentials) {
+        if (passwordHasher.needsRehash(credentials.password())) {
+            passwordHasher.rehashLater(password, newPassword -> {
+                // User di TokenCache masih bawa hash lama, kalo gk dibuang bisa kesimpen balik pas logout / update
+                if (userRepository.updatePassword(credentials.username(), credentials.password(), newPassword) > 0) {
+                    tokenCache.invalidateUser(credentials.username());
+                }
+            });
+        }
+    }
+
+    private Credentials findCredentials(String username) {
+        return jdbcTemplate.query("SELECT username, password FROM users WHERE username = ?",
+                resultSet -> resultSet.next() ? new Credentials(resultSet.getString(1), resultSet.getString(2)) : null,
+                username);
+    }
+
+    private record Credentials(String username, String password) {
+    }
+
     @Transactional
-    public void logout(User user) {
+    public void logout(User user, String token) {
+        // Signed token cukup dicatat di revocation list
+        SignedTokenCodec.Claims claims = signedTokenCodec.verify(token);
+        if (claims != null) {
+            tokenRevocationList.revoke(claims);
+            return;
+        }
+
+        // Session cuma hapus token yang dipake sekarang, session di device lain tetep jalan
+        if ("session".equals(tokenMode)) {
+            tokenCache.invalidate(token);
+            liveTokenFilter.revoke(token);
+            userSessionRepository.deleteByTokenHash(TokenHash.hex(token));
+            return;
+        }
+
         // Tokennya dihapus biar gk bisa akses API
+        tokenCache.invalidate(user.getToken());
+        liveTokenFilter.revoke(user.getToken());
         user.setToken(null);
         user.setTokenExpiredAt(0L);
         userRepository.save(user);
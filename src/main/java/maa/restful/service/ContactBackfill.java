@@ -0,0 +1,123 @@
+package maa.restful.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Isi phone_digits / phone_reversed / email_local / email_domain buat contact lama yang dibuat sebelum kolomnya ada
+ * Contact baru udah diisi sama Contact.normalize(), jadi job ini cuma perlu jalan sampai habis sekali
+ *
+ * Sama kayak ExpiredTokenSweeper: per batch kecil (autocommit) terus jeda sebentar
+ * Batch jalan urut primary key (id > id terakhir), jadi tiap batch cuma baca range-nya sendiri,
+ * gk scan ulang dari awal table ngelewatin baris yang udah keisi
+ * */
+
+@Slf4j
+@Component
+public class ContactBackfill {
+
+    // Harus sama persis kayak Contact.digitsOf / emailLocalOf / emailDomainOf (dipisah di @ terakhir)
+    private static final String SQL = "UPDATE contacts " +
+            "SET phone_digits = REGEXP_REPLACE(phone, '[^0-9]', ''), phone_reversed = REVERSE(REGEXP_REPLACE(phone, '[^0-9]', '')), " +
+            "email_local = LOWER(IF(LOCATE('@', email) = 0, email, LEFT(email, CHAR_LENGTH(email) - CHAR_LENGTH(SUBSTRING_INDEX(email, '@', -1)) - 1))), " +
+            "email_domain = IF(LOCATE('@', email) = 0, '', LOWER(SUBSTRING_INDEX(email, '@', -1))) " +
+            "WHERE id > ? AND id <= ? AND (phone_digits IS NULL OR email_domain IS NULL)";
+
+    // Id terakhir dari batch berikutnya, range scan di primary key
+    private static final String NEXT_BATCH = "SELECT MAX(id) FROM (SELECT id FROM contacts WHERE id > ? ORDER BY id LIMIT ?) batch";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final long pauseMillis;
+
+    private final Counter rowsUpdated;
+
+    // Kalo udah gk ada yang NULL, gk perlu scan table contacts lagi
+    private volatile boolean done;
+
+    // 1 thread, kalo run sebelumnya belum selesai jadwal berikutnya dilewatin
+    private final ThreadPoolExecutor worker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "contact-backfill");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+
+    // Lanjut dari sini kalo run sebelumnya berhenti di tengah jalan (error / interrupted)
+    private volatile String lastId = "";
+
+    public ContactBackfill(JdbcTemplate jdbcTemplate,
+                         @Value("${app.contact.backfill.enabled:true}") boolean enabled,
+                         @Value("${app.contact.backfill.batch-size:1000}") int batchSize,
+                         @Value("${app.contact.backfill.pause-ms:100}") long pauseMillis,
+                         MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.rowsUpdated = meterRegistry.counter("contact.backfill.rows");
+    }
+
+    // Cuma nyerahin ke thread sendiri, loop batch + sleep-nya gk nahan thread scheduler
+    // (SlidingExpiry.flush, TokenRevocationList.refresh, LiveTokenFilter.rebuild tetep jalan tepat waktu)
+    @Scheduled(fixedDelayString = "${app.contact.backfill.interval-ms:600000}", initialDelayString = "${app.contact.backfill.initial-delay-ms:30000}")
+    public void scheduleBackfill() {
+        if (enabled && !done) worker.execute(this::backfill);
+    }
+
+    public void backfill() {
+        if (!enabled || done) return;
+
+        long start = System.nanoTime();
+        int total = 0;
+        while (true) {
+            String from = lastId;
+            String to;
+            try {
+                to = jdbcTemplate.queryForObject(NEXT_BATCH, String.class, from, batchSize);
+                // Udah sampe ujung table
+                if (to == null) break;
+
+                int rows = jdbcTemplate.update(SQL, from, to);
+                total += rows;
+                rowsUpdated.increment(rows);
+            } catch (RuntimeException exception) {
+                log.warn("Contact backfill failed after {} rows", total, exception);
+                return;
+            }
+            lastId = to;
+
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        done = true;
+        if (total > 0) {
+            log.info("Contact backfill updated {} contacts in {} ms", total, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,25 @@
+package maa.restful.service;
+
+import maa.restful.entity.Contact;
+
+/*
+ * Dikirim ContactService setiap contact dibuat / diupdate / dihapus
+ * Dipake buat ngupdate data turunan di memory (index pencarian, jumlah contact, dll), diproses setelah commit
+ * */
+public record ContactChangedEvent(String username, String contactId, String firstName, String lastName,
+                                  String email, String phone, boolean created, boolean deleted) {
+
+    public static ContactChangedEvent created(String username, Contact contact) {
+        return new ContactChangedEvent(username, contact.getId(), contact.getFirstName(), contact.getLastName(),
+                contact.getEmail(), contact.getPhone(), true, false);
+    }
+
+    public static ContactChangedEvent updated(String username, Contact contact) {
+        return new ContactChangedEvent(username, contact.getId(), contact.getFirstName(), contact.getLastName(),
+                contact.getEmail(), contact.getPhone(), false, false);
+    }
+
+    public static ContactChangedEvent deleted(String username, String contactId) {
+        return new ContactChangedEvent(username, contactId, null, null, null, null, false, true);
+    }
+}
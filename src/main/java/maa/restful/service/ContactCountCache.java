@@ -0,0 +1,108 @@
+package maa.restful.service;
+
+import maa.restful.entity.User;
+import maa.restful.repository.ContactRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/*
+ * Perkiraan jumlah contact per user buat search count=approx, biar gk perlu COUNT(*) setiap page
+ * - Tanpa filter: total contact user, dihitung sekali terus ditambah / dikurangin dari ContactChangedEvent
+ * - Pake filter: hasil COUNT(*) disimpen sampe ttl-ms, perubahan di tengah-tengah gk diikutin (namanya juga perkiraan)
+ * */
+
+@Component
+public class ContactCountCache {
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Value("${app.contact.count.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${app.contact.count.max-filters:32}")
+    private int maxFilters;
+
+    @Value("${app.contact.count.ttl-ms:60000}")
+    private long ttlMillis;
+
+    // Total tanpa filter dihitung ulang sesekali, buat jaga-jaga kalo ada perubahan yang gk lewat ContactService
+    @Value("${app.contact.count.max-age-ms:600000}")
+    private long maxAgeMillis;
+
+    private final Map<String, Counts> users = new ConcurrentHashMap<>();
+
+    // filterKey null artinya gk pake filter
+    public long estimate(User user, String filterKey, LongSupplier exactCount) {
+        long now = System.currentTimeMillis();
+        Counts counts = users.get(user.getUsername());
+        if (counts == null || counts.loadedAt + maxAgeMillis < now) {
+            if (users.size() >= maxUsers) evictIdle();
+            counts = new Counts(now);
+            users.put(user.getUsername(), counts);
+        }
+        counts.lastUsedAt = now;
+
+        if (filterKey == null) {
+            long total = counts.total.get();
+            if (total < 0) {
+                total = contactRepository.countByUser(user);
+                counts.total.compareAndSet(-1, total);
+            }
+            return total;
+        }
+
+        Filtered filtered = counts.filtered.get(filterKey);
+        if (filtered != null && filtered.expiresAt >= now) return filtered.count;
+
+        long count = exactCount.getAsLong();
+        if (counts.filtered.size() >= maxFilters) counts.filtered.clear();
+        counts.filtered.put(filterKey, new Filtered(count, now + ttlMillis));
+        return count;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContactChanged(ContactChangedEvent event) {
+        Counts counts = users.get(event.username());
+        if (counts == null) return;
+
+        // Total yang belum pernah dihitung (-1) dibiarin, nanti diambil dari database
+        if (event.created()) {
+            counts.total.updateAndGet(total -> total < 0 ? total : total + 1);
+        } else if (event.deleted()) {
+            counts.total.updateAndGet(total -> total <= 0 ? total : total - 1);
+        }
+    }
+
+    private void evictIdle() {
+        users.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().lastUsedAt))
+                .ifPresent(entry -> users.remove(entry.getKey(), entry.getValue()));
+    }
+
+    private record Filtered(long count, long expiresAt) {
+    }
+
+    private static class Counts {
+
+        private final long loadedAt;
+
+        private volatile long lastUsedAt;
+
+        private final AtomicLong total = new AtomicLong(-1);
+
+        private final Map<String, Filtered> filtered = new ConcurrentHashMap<>();
+
+        Counts(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package maa.restful.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import maa.restful.entity.Contact;
+import maa.restful.entity.User;
+import maa.restful.model.CreateContactRequest;
+import maa.restful.model.ImportContactError;
+import maa.restful.model.ImportContactResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/*
+ * Import contact dari NDJSON (1 object JSON per baris) atau CSV (baris pertama header)
+ * - File dibaca per baris langsung dari request, gk pernah disimpen utuh di memory
+ * - Tiap baris divalidasi pake ValidationService, yang gagal dicatat (nomor baris + pesan) terus lanjut
+ * - Baris yang lebih panjang dari max-line-length gk ditampung, sisanya dibuang sampe newline terus dicatat gagal
+ * - Yang valid dikumpulin per chunk, 1 chunk = 1 transaksi + 1 batch INSERT (JdbcTemplate.batchUpdate)
+ *
+ * Chunk yang udah ke-commit gk di-rollback kalo chunk berikutnya gagal
+ * */
+
+@Slf4j
+@Service
+public class ContactImportService {
+
+    private static final String INSERT = "INSERT INTO contacts " +
+            "(id, username, first_name, last_name, email, phone, phone_digits, phone_reversed, email_local, email_domain) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private ValidationService validationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.contact.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.contact.import.max-errors:100}")
+    private int maxErrors;
+
+    @Value("${app.contact.import.max-line-length:65536}")
+    private int maxLineLength;
+
+    public ImportContactResponse importNdjson(User user, InputStream body) throws IOException {
+        Result result = new Result(user.getUsername());
+        LineReader reader = new LineReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), maxLineLength);
+
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.next()) != null) {
+            lineNumber++;
+            if (reader.isTooLong()) {
+                result.fail(lineNumber, "Line is too long");
+                continue;
+            }
+            if (line.isBlank()) continue;
+
+            CreateContactRequest request;
+            try {
+                request = objectMapper.readValue(line, CreateContactRequest.class);
+            } catch (JsonProcessingException exception) {
+                request = null;
+            }
+
+            if (request == null) {
+                result.fail(lineNumber, "Invalid JSON");
+                continue;
+            }
+            result.add(lineNumber, request);
+        }
+
+        result.flush();
+        return result.toResponse();
+    }
+
+    public ImportContactResponse importCsv(User user, InputStream body) throws IOException {
+        Result result = new Result(user.getUsername());
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), maxLineLength);
+
+        // Header nentuin urutan kolom, nama kolom sama kayak field JSON (firstName, lastName, email, phone)
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header is required");
+        }
+        if (reader.isTooLong()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header is too long");
+        }
+        int firstName = -1, lastName = -1, email = -1, phone = -1;
+        for (int i = 0; i < header.size(); i++) {
+            switch (header.get(i).replace("\uFEFF", "").strip().toLowerCase(Locale.ROOT)) {
+                case "firstname" -> firstName = i;
+                case "lastname" -> lastName = i;
+                case "email" -> email = i;
+                case "phone" -> phone = i;
+                default -> {
+                }
+            }
+        }
+
+        List<String> row;
+        while ((row = reader.next()) != null) {
+            if (reader.isTooLong()) {
+                result.fail(reader.getRowLine(), "Line is too long");
+                continue;
+            }
+            if (row.size() == 1 && row.get(0).isBlank()) continue;
+
+            CreateContactRequest request = new CreateContactRequest();
+            request.setFirstName(column(row, firstName));
+            request.setLastName(column(row, lastName));
+            request.setEmail(column(row, email));
+            request.setPhone(column(row, phone));
+            result.add(reader.getRowLine(), request);
+        }
+
+        result.flush();
+        return result.toResponse();
+    }
+
+    // Kolom kosong dianggap null, sama kayak field yang gk dikirim di JSON
+    private static String column(List<String> row, int index) {
+        if (index < 0 || index >= row.size() || row.get(index).isEmpty()) return null;
+        return row.get(index);
+    }
+
+    // Format per field kayak "email: must be a well-formed email address", diurutin biar pesannya gk berubah-ubah
+    private static String messageOf(ConstraintViolationException exception) {
+        return exception.getConstraintViolations().stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    // Hasil import 1 request, yang disimpen di memory cuma 1 chunk + error yang dicatat (maks max-errors)
+    private class Result {
+
+        private final String username;
+
+        private final List<Object[]> chunk = new ArrayList<>(chunkSize);
+
+        private final List<Long> chunkLines = new ArrayList<>(chunkSize);
+
+        private final List<ImportContactError> errors = new ArrayList<>();
+
+        private long total;
+
+        private long imported;
+
+        private long failed;
+
+        Result(String username) {
+            this.username = username;
+        }
+
+        void add(long line, CreateContactRequest request) {
+            total++;
+            try {
+                validationService.validate(request);
+            } catch (ConstraintViolationException exception) {
+                recordError(line, messageOf(exception));
+                return;
+            }
+
+            // Kolom email / phone di database NOT NULL, yang gk diisi disimpen kosong biar 1 baris gk ngegagalin 1 chunk
+            String email = Objects.requireNonNullElse(request.getEmail(), "");
+            String phone = Objects.requireNonNullElse(request.getPhone(), "");
+
+            // Kolom turunan diisi sendiri, sama kayak Contact.normalize()
+            String phoneDigits = Contact.digitsOf(phone);
+            chunk.add(new Object[]{
+                    UUID.randomUUID().toString(), username, request.getFirstName(), request.getLastName(), email, phone,
+                    phoneDigits, new StringBuilder(phoneDigits).reverse().toString(),
+                    Contact.emailLocalOf(email), Contact.emailDomainOf(email)
+            });
+            chunkLines.add(line);
+            if (chunk.size() >= chunkSize) flush();
+        }
+
+        void fail(long line, String message) {
+            total++;
+            recordError(line, message);
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) return;
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(INSERT, chunk);
+
+                    // Index / cache di memory ikut diupdate setelah chunk ini commit
+                    for (Object[] row : chunk) {
+                        eventPublisher.publishEvent(new ContactChangedEvent(username, (String) row[0], (String) row[2],
+                                (String) row[3], (String) row[4], (String) row[5], true, false));
+                    }
+                });
+                imported += chunk.size();
+            } catch (DataAccessException exception) {
+                // 1 baris gagal di database = 1 chunk di-rollback, semua barisnya dicatat gagal
+                log.warn("Contact import chunk of {} rows failed", chunk.size(), exception);
+                for (Long line : chunkLines) {
+                    recordError(line, "Failed to save contact");
+                }
+            } finally {
+                chunk.clear();
+                chunkLines.clear();
+            }
+        }
+
+        private void recordError(long line, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportContactError(line, message));
+            }
+        }
+
+        ImportContactResponse toResponse() {
+            return ImportContactResponse.builder()
+                    .total(total)
+                    .imported(imported)
+                    .failed(failed)
+                    .errors(errors)
+                    .build();
+        }
+    }
+
+    // Pengganti BufferedReader.readLine yang panjang barisnya dibatasi, sisa baris yang kepanjangan dibuang
+    private static class LineReader {
+
+        private final Reader reader;
+
+        private final int maxLength;
+
+        private final StringBuilder line = new StringBuilder();
+
+        private boolean tooLong;
+
+        LineReader(Reader reader, int maxLength) {
+            this.reader = reader;
+            this.maxLength = maxLength;
+        }
+
+        // true kalo baris terakhir kepanjangan, isinya cuma potongan awalnya
+        boolean isTooLong() {
+            return tooLong;
+        }
+
+        String next() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+
+            int c;
+            boolean any = false;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                if (c == '\n') break;
+                if (line.length() < maxLength) {
+                    line.append((char) c);
+                } else {
+                    tooLong = true;
+                }
+            }
+
+            if (!any) return null;
+            if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') line.setLength(line.length() - 1);
+            return line.toString();
+        }
+    }
+
+    // CSV sederhana (RFC 4180): pemisah koma, field boleh pake "...", "" di dalem quote = ", newline di dalem quote ikut field
+    private static class CsvReader {
+
+        private final Reader reader;
+
+        private final int maxLength;
+
+        private long line = 1;
+
+        private long rowLine;
+
+        private boolean tooLong;
+
+        private boolean eof;
+
+        CsvReader(Reader reader, int maxLength) {
+            this.reader = reader;
+            this.maxLength = maxLength;
+        }
+
+        // Nomor baris tempat row terakhir dimulai
+        long getRowLine() {
+            return rowLine;
+        }
+
+        // true kalo row terakhir lebih panjang dari maxLength, isinya gk lengkap dan harus dianggap gagal
+        boolean isTooLong() {
+            return tooLong;
+        }
+
+        List<String> next() throws IOException {
+            if (eof) return null;
+
+            rowLine = line;
+            tooLong = false;
+            List<String> row = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int length = 0;
+
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                // Row yang kepanjangan tetep dibaca sampe habis (biar row berikutnya pas), tapi isinya gk disimpen
+                if (++length > maxLength) {
+                    tooLong = true;
+                    row.clear();
+                    field.setLength(0);
+                }
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') line++;
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    row.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    line++;
+                    row.add(field.toString());
+                    return row;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+
+            eof = true;
+            if (!any) return null;
+            row.add(field.toString());
+            return row;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package maa.restful.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import maa.restful.model.ContactResponse;
+import maa.restful.model.SearchContactRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/*
+ * Cache hasil ContactService.search, key-nya user + generation + filter (dinormalisasi) + page + size + count
+ * - Setiap contact user dibuat / diupdate / dihapus, generation user itu diganti (O(1)), jadi semua cache lamanya otomatis gk kepake
+ * - Generation diambil sebelum query, jadi hasil query yang barengan sama update gk bakal disimpen sebagai data baru
+ * - Jumlah entry dibatasi (max-entries) dan ada TTL buat perubahan yang gk lewat ContactService
+ * */
+
+@Component
+public class ContactSearchCache {
+
+    private final boolean enabled;
+
+    private final int maxEntries;
+
+    private final long ttlMillis;
+
+    // Nilai generation diambil dari counter global, jadi user yang generation-nya kebuang gk bakal dapet nilai lama lagi
+    private final AtomicLong counter = new AtomicLong();
+
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    public ContactSearchCache(@Value("${app.contact.search-cache.enabled:false}") boolean enabled,
+                              @Value("${app.contact.search-cache.max-entries:10000}") int maxEntries,
+                              @Value("${app.contact.search-cache.ttl-ms:300000}") long ttlMillis,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.hits = meterRegistry.counter("contact.search.cache", "result", "hit");
+        this.misses = meterRegistry.counter("contact.search.cache", "result", "miss");
+        meterRegistry.gaugeMapSize("contact.search.cache.size", Tags.empty(), entries);
+    }
+
+    public Page<ContactResponse> get(String username, SearchContactRequest request, Supplier<Page<ContactResponse>> search) {
+        if (!enabled) return search.get();
+
+        long now = System.currentTimeMillis();
+        Key key = new Key(username, generation(username), normalize(request.getName()), normalize(request.getEmail()),
+                normalize(request.getPhone()), request.getPhoneMatch(), request.getPage(), request.getSize(), request.getCount(),
+                request.getSort(), request.getDirection());
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt >= now) {
+            hits.increment();
+            return entry.page;
+        }
+
+        misses.increment();
+        Page<ContactResponse> page = search.get();
+        if (entries.size() >= maxEntries) evict(now);
+        entries.put(key, new Entry(page, now + ttlMillis));
+        return page;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContactChanged(ContactChangedEvent event) {
+        if (!enabled) return;
+        generations.put(event.username(), counter.incrementAndGet());
+    }
+
+    private long generation(String username) {
+        if (generations.size() >= maxEntries && !generations.containsKey(username)) generations.clear();
+        return generations.computeIfAbsent(username, key -> counter.incrementAndGet());
+    }
+
+    private void evict(long now) {
+        // Buang yang expired / generation-nya udah lama dulu, kalo masih penuh buang sembarang
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> entry = iterator.next();
+            Long generation = generations.get(entry.getKey().username);
+            if (entry.getValue().expiresAt < now || generation == null || generation != entry.getKey().generation) {
+                iterator.remove();
+            }
+        }
+
+        iterator = entries.entrySet().iterator();
+        while (entries.size() >= maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    // LIKE di MySQL case insensitive, jadi "Budi" dan "budi" hasilnya sama
+    // Spasi gk dibuang, "% budi %" beda hasil sama "%budi%"
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private record Key(String username, long generation, String name, String email, String phone, String phoneMatch,
+                       Integer page, Integer size, String count, String sort, String direction) {
+    }
+
+    private record Entry(Page<ContactResponse> page, long expiresAt) {
+    }
+}
@@ -0,0 +1,255 @@
+package maa.restful.service;
+
+import lombok.extern.slf4j.Slf4j;
+import maa.restful.entity.Contact;
+import maa.restful.repository.ContactRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Inverted index trigram (3 huruf) per user buat ContactService.search, pengganti LIKE '%...%'
+ * - Index user dibangun pas pertama kali dia search, terus diupdate dari ContactChangedEvent
+ * - Hasil index cuma kandidat, tetep dicek ulang pake contains() biar hasilnya sama persis kayak LIKE
+ * - Jumlah user yang disimpen dibatasi (max-users), yang paling lama gk dipake dibuang
+ *
+ * Pencarian lowercase aja (collation MySQL juga case insensitive), keyword < 3 huruf di-scan langsung di memory
+ * Phone di-index angkanya aja (Contact.digitsOf), sama kayak phone_digits di ContactService.phonePredicate
+ * */
+
+@Slf4j
+@Component
+public class ContactSearchIndex {
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Value("${app.contact.search.trigram.max-users:1000}")
+    private int maxUsers;
+
+    // Dibangun ulang berkala, buat jaga-jaga kalo ada perubahan yang gk lewat ContactService
+    @Value("${app.contact.search.trigram.max-age-ms:600000}")
+    private long maxAgeMillis;
+
+    private final Map<String, UserIndex> indexes = new ConcurrentHashMap<>();
+
+    /*
+     * Return id contact yang cocok sama semua kriteria (null = gk dipake), urut berdasarkan id
+     * */
+    public List<String> search(String username, String name, String email, String phone) {
+        UserIndex index = load(username);
+        return index.search(lower(name), lower(email), lower(phone));
+    }
+
+    public void invalidate(String username) {
+        indexes.remove(username);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContactChanged(ContactChangedEvent event) {
+        // User yang belum pernah search gk usah diurus, nanti dibangun dari database
+        UserIndex index = indexes.get(event.username());
+        if (index != null) index.apply(event);
+    }
+
+    private UserIndex load(String username) {
+        long now = System.currentTimeMillis();
+        UserIndex index = indexes.get(username);
+        if (index != null && index.builtAt + maxAgeMillis < now) {
+            indexes.remove(username, index);
+            index = null;
+        }
+
+        if (index == null) {
+            if (indexes.size() >= maxUsers) evictIdle();
+            index = indexes.computeIfAbsent(username, key -> new UserIndex(now));
+        }
+        index.lastUsedAt = now;
+
+        // Cuma 1 thread yang ngisi, event yang masuk selama loading ditampung dulu di pending
+        synchronized (index.loadLock) {
+            if (!index.isLoaded()) {
+                List<Object[]> rows = contactRepository.findSearchFieldsByUsername(username);
+                index.finishLoad(rows);
+                log.debug("Built contact search index for {} with {} contacts", username, rows.size());
+            }
+        }
+        return index;
+    }
+
+    private void evictIdle() {
+        indexes.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().lastUsedAt))
+                .ifPresent(entry -> indexes.remove(entry.getKey(), entry.getValue()));
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    // 3 karakter dipack jadi 1 long
+    private static long trigram(String value, int from) {
+        return ((long) value.charAt(from) << 32) | ((long) value.charAt(from + 1) << 16) | value.charAt(from + 2);
+    }
+
+    private record Doc(String firstName, String lastName, String email, String phone, String phoneDigits) {
+
+        Doc(String firstName, String lastName, String email, String phone) {
+            this(firstName, lastName, email, phone, Contact.digitsOf(phone));
+        }
+    }
+
+    private static class UserIndex {
+
+        private final Object loadLock = new Object();
+
+        private final long builtAt;
+
+        private volatile long lastUsedAt;
+
+        private final Map<String, Doc> docs = new HashMap<>();
+
+        // firstName dan lastName digabung di satu posting list, soalnya filter name nyari di dua-duanya
+        private final Map<Long, Set<String>> names = new HashMap<>();
+
+        private final Map<Long, Set<String>> emails = new HashMap<>();
+
+        private final Map<Long, Set<String>> phones = new HashMap<>();
+
+        private List<ContactChangedEvent> pending = new ArrayList<>();
+
+        UserIndex(long builtAt) {
+            this.builtAt = builtAt;
+        }
+
+        synchronized boolean isLoaded() {
+            return pending == null;
+        }
+
+        synchronized void finishLoad(List<Object[]> rows) {
+            for (Object[] row : rows) {
+                put((String) row[0], new Doc(lower((String) row[1]), lower((String) row[2]), lower((String) row[3]), lower((String) row[4])));
+            }
+            // Event yang dateng pas lagi query, diterapin lagi (upsert / delete aman diulang)
+            for (ContactChangedEvent event : pending) {
+                applyNow(event);
+            }
+            pending = null;
+        }
+
+        synchronized void apply(ContactChangedEvent event) {
+            if (pending != null) {
+                pending.add(event);
+            } else {
+                applyNow(event);
+            }
+        }
+
+        private void applyNow(ContactChangedEvent event) {
+            if (event.deleted()) {
+                remove(event.contactId());
+            } else {
+                put(event.contactId(), new Doc(lower(event.firstName()), lower(event.lastName()), lower(event.email()), lower(event.phone())));
+            }
+        }
+
+        private void put(String id, Doc doc) {
+            remove(id);
+            docs.put(id, doc);
+            index(names, trigrams(doc.firstName, doc.lastName), id, true);
+            index(emails, trigrams(doc.email), id, true);
+            index(phones, trigrams(doc.phoneDigits), id, true);
+        }
+
+        private void remove(String id) {
+            Doc doc = docs.remove(id);
+            if (doc == null) return;
+            index(names, trigrams(doc.firstName, doc.lastName), id, false);
+            index(emails, trigrams(doc.email), id, false);
+            index(phones, trigrams(doc.phoneDigits), id, false);
+        }
+
+        private static void index(Map<Long, Set<String>> postings, Set<Long> keys, String id, boolean add) {
+            for (Long key : keys) {
+                if (add) {
+                    postings.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+                } else {
+                    Set<String> ids = postings.get(key);
+                    if (ids != null && ids.remove(id) && ids.isEmpty()) postings.remove(key);
+                }
+            }
+        }
+
+        // Dijadiin Set dulu, soalnya trigram yang sama bisa muncul berkali-kali (misal di nama depan & belakang)
+        private static Set<Long> trigrams(String... values) {
+            Set<Long> keys = new HashSet<>();
+            for (String value : values) {
+                if (value == null) continue;
+                for (int i = 0; i + 3 <= value.length(); i++) {
+                    keys.add(trigram(value, i));
+                }
+            }
+            return keys;
+        }
+
+        synchronized List<String> search(String name, String email, String phone) {
+            // Keyword phone yang ada angkanya dicocokin ke angkanya aja ("0812 3456" = "0812-3456"),
+            // yang gk ada angkanya sama sekali dicek ke phone aslinya
+            String phoneDigits = Contact.digitsOf(phone);
+            if (phoneDigits != null && phoneDigits.isEmpty()) phoneDigits = null;
+
+            // Ambil posting list dari semua keyword, mulai dari yang paling kecil
+            List<Set<String>> lists = new ArrayList<>();
+            if (!collect(names, name, lists) || !collect(emails, email, lists) || !collect(phones, phoneDigits, lists)) {
+                return List.of();
+            }
+
+            Collection<String> candidates;
+            if (lists.isEmpty()) {
+                candidates = docs.keySet();
+            } else {
+                lists.sort(Comparator.comparingInt(Set::size));
+                candidates = lists.get(0);
+            }
+
+            List<String> result = new ArrayList<>();
+            for (String id : candidates) {
+                if (!containsAll(lists, id)) continue;
+                Doc doc = docs.get(id);
+                if (name != null && !contains(doc.firstName, name) && !contains(doc.lastName, name)) continue;
+                if (email != null && !contains(doc.email, email)) continue;
+                if (phoneDigits != null && !contains(doc.phoneDigits, phoneDigits)) continue;
+                if (phoneDigits == null && phone != null && !contains(doc.phone, phone)) continue;
+                result.add(id);
+            }
+            Collections.sort(result);
+            return result;
+        }
+
+        // false artinya ada trigram yang gk punya posting sama sekali -> udah pasti gk ada hasil
+        private static boolean collect(Map<Long, Set<String>> postings, String keyword, List<Set<String>> lists) {
+            if (keyword == null) return true;
+            for (int i = 0; i + 3 <= keyword.length(); i++) {
+                Set<String> ids = postings.get(trigram(keyword, i));
+                if (ids == null) return false;
+                lists.add(ids);
+            }
+            return true;
+        }
+
+        private static boolean containsAll(List<Set<String>> lists, String id) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(id)) return false;
+            }
+            return true;
+        }
+
+        private static boolean contains(String value, String keyword) {
+            return value != null && value.contains(keyword);
+        }
+    }
+}
@@ -1,30 +1,44 @@
 package maa.restful.service;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.Predicate;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.criteria.Root;
 import maa.restful.entity.Address;
 import maa.restful.entity.Contact;
 import maa.restful.entity.User;
+import maa.restful.model.AddressResponse;
+import maa.restful.model.BulkDeleteContactRequest;
 import maa.restful.model.ContactResponse;
 import maa.restful.model.CreateContactRequest;
 import maa.restful.model.SearchContactRequest;
 import maa.restful.model.UpdateContactRequest;
 import maa.restful.repository.AddressRepository;
+import maa.restful.repository.ContactAddressRow;
 import maa.restful.repository.ContactRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,6 +53,37 @@ public class ContactService {
     @Autowired
     private AddressRepository addressRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ContactSearchIndex contactSearchIndex;
+
+    @Autowired
+    private ContactCountCache contactCountCache;
+
+    @Autowired
+    private ContactSuggestIndex contactSuggestIndex;
+
+    @Autowired
+    private ContactSearchCache contactSearchCache;
+
+    @Value("${app.contact.suggest.max-limit:50}")
+    private int suggestMaxLimit;
+
+    private static final Sort CURSOR_SORT = Sort.by("lastName", "firstName", "id");
+
+    private static final String CURSOR_SEPARATOR = "\u0000";
+
+    // like = query LIKE '%...%' langsung ke database, trigram = pake ContactSearchIndex di memory,
+    // fulltext = pake index FULLTEXT MySQL (MATCH ... AGAINST)
+    @Value("${app.contact.search.engine:like}")
+    private String searchEngine;
+
+    // Sama kayak innodb_ft_min_token_size, kata yang lebih pendek gk masuk index FULLTEXT
+    @Value("${app.contact.search.fulltext.min-token-size:3}")
+    private int fulltextMinTokenSize;
+
     private ContactResponse toContactResponse(Contact contact) {
         return ContactResponse.builder()
                 .id(contact.getId())
@@ -67,6 +112,7 @@ public class ContactService {
 
         // Simpen ke database
         contactRepository.save(contact);
+        eventPublisher.publishEvent(ContactChangedEvent.created(user.getUsername(), contact));
         return toContactResponse(contact);
     }
 
@@ -98,13 +144,15 @@ public class ContactService {
 
         // Simpan dan Return
         contactRepository.save(contact);
+        eventPublisher.publishEvent(ContactChangedEvent.updated(user.getUsername(), contact));
         return toContactResponse(contact);
     }
 
     @Transactional
     public String delete(User user, String contactId) {
-        Contact contact = contactRepository.findFirstByUserAndId(user,contactId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (!contactRepository.existsByUserAndId(user, contactId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
 
         // Kita harus hapus dulu semua addressnya (Address terhubung ke Contact berdasarkan ID dengan konsep Many (Address) to One (Contact))
 
@@ -113,76 +161,336 @@ public class ContactService {
          ** Kalo konsepnya Many to Many harus dihapus dulu data yang terhubung
          **/
 
-        addressRepository.deleteAllByContact(contact); // Hapus semua address yang terhubung
-        contactRepository.delete(contact); // baru hapus contactnya
+        // Masing-masing 1 statement DELETE, address gk di-load satu-satu lagi
+        addressRepository.deleteAllByContactIdIn(List.of(contactId)); // Hapus semua address yang terhubung
+        contactRepository.deleteAllByIdIn(List.of(contactId)); // baru hapus contactnya
+        eventPublisher.publishEvent(ContactChangedEvent.deleted(user.getUsername(), contactId));
         return "OK";
     }
 
+    // Hapus banyak contact sekaligus, berapapun jumlahnya cuma 3 query (cek pemilik, hapus address, hapus contact)
+    @Transactional
+    public Integer deleteAll(User user, BulkDeleteContactRequest request) {
+        validationService.validate(request);
+
+        // Id yang bukan punya user ini / gk ada di database diabaikan
+        List<String> ids = contactRepository.findIdsByUsernameAndIdIn(user.getUsername(), new HashSet<>(request.getIds()));
+        if (ids.isEmpty()) return 0;
+
+        addressRepository.deleteAllByContactIdIn(ids);
+        contactRepository.deleteAllByIdIn(ids);
+        for (String id : ids) {
+            eventPublisher.publishEvent(ContactChangedEvent.deleted(user.getUsername(), id));
+        }
+        return ids.size();
+    }
+
+    // Read only: gk ada flush / dirty checking, datanya langsung diambil jadi ContactResponse
+    @Transactional(readOnly = true)
     public ContactResponse get(User user, String contactId) {
-        Contact contact = contactRepository.findFirstByUserAndId(user, contactId)
+        return contactRepository.findResponseByUsernameAndId(user.getUsername(), contactId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Contact is not found"));
+    }
 
-        return toContactResponse(contact);
+    // expand=addresses: address semua contact di page ini diambil pake 1 query IN, bukan 1 query per contact
+    // Hasilnya object baru, ContactResponse dari cache search gk boleh diubah
+    @Transactional(readOnly = true)
+    public List<ContactResponse> withAddresses(List<ContactResponse> contacts) {
+        if (contacts.isEmpty()) return contacts;
+
+        Map<String, List<AddressResponse>> addresses = addressRepository.findRowsByContactIdIn(contacts.stream().map(ContactResponse::getId).toList()).stream()
+                .collect(Collectors.groupingBy(ContactAddressRow::contactId,
+                        Collectors.mapping(ContactAddressRow::toAddressResponse, Collectors.toList())));
+
+        return contacts.stream()
+                .map(contact -> new ContactResponse(contact.getId(), contact.getFirstName(), contact.getLastName(),
+                        contact.getEmail(), contact.getPhone(), addresses.getOrDefault(contact.getId(), List.of())))
+                .toList();
     }
 
-    @Transactional
+    // Autocomplete, dipanggil setiap ketikan jadi diambil dari memory (ContactSuggestIndex)
+    @Transactional(readOnly = true)
+    public List<ContactResponse> suggest(User user, String query, int limit) {
+        if (query == null || query.isBlank()) return List.of();
+
+        return contactSuggestIndex.suggest(user, query.strip(), Math.max(1, Math.min(limit, suggestMaxLimit)));
+    }
+
+    @Transactional(readOnly = true)
     public Page<ContactResponse> search(User user, SearchContactRequest request) {
-            // Specification adalah method untuk membuat advance query, terutama menggunakan WHERE
-            Specification<Contact> specification = ((root, query, builder) -> {
-                List<Predicate> predicates = new ArrayList<>(); // jakarta.persistence.criteria.Predicate;
-
-                if (Objects.nonNull(request.getName())) {
-                    predicates.add(builder.or( // Optional Query
-                            builder.like(root.get("firstName"), "%"+ request.getName() +"%"),
-                            builder.like(root.get("lastName"), "%" + request.getName() + "%")
-                    ));
-                }
-
-                predicates.add(builder.equal(root.get("user"), user)); // Mandatory query
-
-                if (Objects.nonNull(request.getEmail())) {
-                    predicates.add(builder.like(root.get("email"), "%"+ request.getEmail() + "%")); // Optional
-                }
-
-                if (Objects.nonNull(request.getPhone())) {
-                    predicates.add(builder.like(root.get("phone"), "%" + request.getPhone() +"%")); // Optional
-                }
-
-                return query.where(predicates.toArray(new Predicate[]{})).getRestriction(); // getRestriction() method supaya JPA bisa menexecute querynya
-                // Ini return dari fungsi Specification
-
-                /**
-                 * SELECT * FROM Contact
-                 * WHERE user = ?  -- ini Mandatory makanya dihubungkan dengan logic AND
-                 * AND (
-                 *     (firstName LIKE '%name%' OR lastName LIKE '%name%')  -- Name search (if name provided)
-                 *   OR email LIKE '%email%'  -- Email search (if email provided) -- kenapa column email sama phone make OR bukan AND?
-                 *   OR phone LIKE '%phone%'  -- Phone search (if phone provided) -- karena didalam if condition yang artinya Optional
-                 * )
-                 */
-
-                /**
-                 * Mandatory query = builder.{logic} yang pasti selalu ada di dalam query, dihubungkan dengan AND oleh predicate.add()
-                 * Optional query = builder.{logic} yang bisa tidak ada di dalam query, dihubungkan dengan OR oleh predicate.add()
-                 */
-
-                /**
-                 * jadi Mandatory atau Optional tidak ditentukan oleh urutan builder.{logic}
-                 * tapi ditentukan oleh logic code misalnya if condition
-                 */
-            });
+        // Search yang sama persis sebelum ada perubahan contact diambil dari cache
+        return contactSearchCache.get(user.getUsername(), request, () -> searchUncached(user, request));
+    }
+
+    private Page<ContactResponse> searchUncached(User user, SearchContactRequest request) {
+        boolean indexed = isIndexed(request);
+
+        if ("trigram".equals(searchEngine) && !indexed) {
+            return searchWithIndex(user, request);
+        }
+
+        if ("fulltext".equals(searchEngine) && !indexed) {
+            String match = toFulltextQuery(request.getName(), request.getEmail());
+            // Kalo gk ada kata yang bisa dicari pake FULLTEXT (misal cuma phone), balik ke LIKE biasa
+            if (match != null) {
+                Pageable pageable = PageRequest.of(request.getPage(), request.getSize());
+                return contactRepository.searchFulltext(user.getUsername(), match,
+                        request.getName(), request.getEmail(), request.getPhone(), pageable);
+            }
+        }
+
+        Specification<Contact> specification = searchSpecification(user, request);
 
         // Setting pagging
-        Pageable pageable = PageRequest.of(request.getPage(), request.getSize()); // (page saat ini, maks data per-page)
-        Page<Contact> contacts = contactRepository.findAll(specification, pageable); // (Specification, Pageable)
+        Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), searchSort(request)); // (page saat ini, maks data per-page, urutan)
+
+        // count=approx: total diambil dari ContactCountCache, query ke database cuma ambil data
+        if ("approx".equals(request.getCount())) {
+            return searchWithApproxCount(user, request, specification, pageable);
+        }
+
+        // Sama kayak findAll(Specification, Pageable), tapi yang diambil cuma kolom ContactResponse
+        return contactRepository.findResponses(specification, pageable);
+    }
+
+    // count=none: gk ada COUNT(*) sama sekali, cuma tau masih ada page berikutnya atau gk
+    @Transactional(readOnly = true)
+    public Slice<ContactResponse> searchWithoutCount(User user, SearchContactRequest request) {
+        boolean indexed = isIndexed(request);
+
+        // Trigram: semua id yang cocok udah ada di memory, totalnya gratis tanpa query ke database
+        if ("trigram".equals(searchEngine) && !indexed) {
+            return searchWithIndex(user, request);
+        }
+
+        // Fulltext: ambil size + 1 baris, gk ada SELECT count(*) ... MATCH
+        if ("fulltext".equals(searchEngine) && !indexed) {
+            String match = toFulltextQuery(request.getName(), request.getEmail());
+            if (match != null) {
+                Pageable pageable = PageRequest.of(request.getPage(), request.getSize());
+                return contactRepository.searchFulltextSlice(user.getUsername(), match,
+                        request.getName(), request.getEmail(), request.getPhone(), pageable);
+            }
+        }
+
+        Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), searchSort(request));
+        return contactRepository.findResponseSlice(searchSpecification(user, request), pageable);
+    }
+
+    // Phone exact / suffix, email persis / domain dan sort selalu lewat index di database
+    private boolean isIndexed(SearchContactRequest request) {
+        return (Objects.nonNull(request.getPhone()) && isPhoneIndexed(request))
+                || (Objects.nonNull(request.getEmail()) && isEmailIndexed(request.getEmail()))
+                || Objects.nonNull(request.getSort());
+    }
+
+    // ORDER BY kolom, id -> database tinggal baca index (username, kolom, id) urut, tanpa filesort
+    // lastName ikut urutan cursor (lastName, firstName, id), biar pake index contacts_username_name_idx juga
+    private Sort searchSort(SearchContactRequest request) {
+        if (Objects.isNull(request.getSort())) return Sort.unsorted();
+
+        Sort.Direction direction = "desc".equals(request.getDirection()) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        if ("lastName".equals(request.getSort())) {
+            return Sort.by(direction, "lastName", "firstName", "id");
+        }
+        return Sort.by(direction, request.getSort(), "id");
+    }
+
+    private Page<ContactResponse> searchWithApproxCount(User user, SearchContactRequest request, Specification<Contact> specification, Pageable pageable) {
+        Slice<ContactResponse> contacts = contactRepository.findResponseSlice(specification, pageable);
+
+        String filterKey = Objects.isNull(request.getName()) && Objects.isNull(request.getEmail()) && Objects.isNull(request.getPhone())
+                ? null
+                : (request.getName() + "\u0000" + request.getEmail() + "\u0000" + request.getPhone() + "\u0000" + request.getPhoneMatch()).toLowerCase();
+        long estimate = contactCountCache.estimate(user, filterKey, () -> contactRepository.count(specification));
+
+        // Perkiraan gk boleh bertentangan sama data yang barusan diambil
+        long seen = pageable.getOffset() + contacts.getNumberOfElements();
+        long total = contacts.hasNext() ? Math.max(estimate, seen + 1) : (contacts.hasContent() ? seen : Math.min(estimate, pageable.getOffset()));
+        return new PageImpl<>(contacts.getContent(), pageable, total);
+    }
+
+    private Specification<Contact> searchSpecification(User user, SearchContactRequest request) {
+        // Specification adalah method untuk membuat advance query, terutama menggunakan WHERE
+        return ((root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>(); // jakarta.persistence.criteria.Predicate;
+
+            if (Objects.nonNull(request.getName())) {
+                predicates.add(builder.or( // Optional Query
+                        builder.like(root.get("firstName"), "%"+ request.getName() +"%"),
+                        builder.like(root.get("lastName"), "%" + request.getName() + "%")
+                ));
+            }
+
+            predicates.add(builder.equal(root.get("user"), user)); // Mandatory query
+
+            if (Objects.nonNull(request.getEmail())) {
+                predicates.add(emailPredicate(root, builder, request.getEmail())); // Optional
+            }
+
+            if (Objects.nonNull(request.getPhone())) {
+                predicates.add(phonePredicate(root, builder, request)); // Optional
+            }
+
+            return query.where(predicates.toArray(new Predicate[]{})).getRestriction(); // getRestriction() method supaya JPA bisa menexecute querynya
+            // Ini return dari fungsi Specification
+
+            /**
+             * SELECT * FROM Contact
+             * WHERE user = ?  -- ini Mandatory makanya dihubungkan dengan logic AND
+             * AND (
+             *     (firstName LIKE '%name%' OR lastName LIKE '%name%')  -- Name search (if name provided)
+             *   OR email LIKE '%email%'  -- Email search (if email provided) -- kenapa column email sama phone make OR bukan AND?
+             *   OR phone LIKE '%phone%'  -- Phone search (if phone provided) -- karena didalam if condition yang artinya Optional
+             * )
+             */
+
+            /**
+             * Mandatory query = builder.{logic} yang pasti selalu ada di dalam query, dihubungkan dengan AND oleh predicate.add()
+             * Optional query = builder.{logic} yang bisa tidak ada di dalam query, dihubungkan dengan OR oleh predicate.add()
+             */
+
+            /**
+             * jadi Mandatory atau Optional tidak ditentukan oleh urutan builder.{logic}
+             * tapi ditentukan oleh logic code misalnya if condition
+             */
+        });
+    }
+
+    private boolean isPhoneIndexed(SearchContactRequest request) {
+        return ("exact".equals(request.getPhoneMatch()) || "suffix".equals(request.getPhoneMatch()))
+                && !Contact.digitsOf(request.getPhone()).isEmpty();
+    }
+
+    // "budi@company.com" = email persis, "@company.com" = semua email di domain itu, selain itu LIKE biasa
+    // Domain harus lengkap (ada titik, gk ada bagian kosong), "budi@comp" / "budi@company." masih diketik jadi tetep LIKE
+    private boolean isEmailIndexed(String email) {
+        int at = email.lastIndexOf('@');
+        if (at < 0 || email.contains("%") || email.contains("_")) return false;
+
+        String domain = email.substring(at + 1);
+        int dot = domain.lastIndexOf('.');
+        if (dot <= 0 || domain.startsWith(".") || domain.contains("..")) return false;
+
+        // Bagian terakhir minimal 2 huruf (com, id, ...)
+        String tld = domain.substring(dot + 1);
+        return tld.length() >= 2 && tld.chars().allMatch(Character::isLetter);
+    }
+
+    private Predicate emailPredicate(Root<Contact> root, CriteriaBuilder builder, String email) {
+        if (!isEmailIndexed(email)) {
+            return builder.like(root.get("email"), "%" + email + "%");
+        }
+
+        // WHERE username = ? AND email_domain = ? (AND email_local = ?), index (username, email_domain, email_local)
+        Predicate domain = builder.equal(root.get("emailDomain"), Contact.emailDomainOf(email));
+        if (email.startsWith("@")) {
+            return domain;
+        }
+        return builder.and(domain, builder.equal(root.get("emailLocal"), Contact.emailLocalOf(email)));
+    }
+
+    private Predicate phonePredicate(Root<Contact> root, CriteriaBuilder builder, SearchContactRequest request) {
+        String digits = Contact.digitsOf(request.getPhone());
+
+        // Input tanpa angka sama sekali cuma bisa dicari di phone aslinya
+        if (digits.isEmpty()) {
+            return builder.like(root.get("phone"), "%" + request.getPhone() + "%");
+        }
+
+        // WHERE username = ? AND phone_digits = ?, index (username, phone_digits)
+        if ("exact".equals(request.getPhoneMatch())) {
+            return builder.equal(root.get("phoneDigits"), digits);
+        }
+
+        // "berakhiran 3456" = phone_reversed LIKE '6543%', range scan di index (username, phone_reversed)
+        if ("suffix".equals(request.getPhoneMatch())) {
+            return builder.like(root.get("phoneReversed"), new StringBuilder(digits).reverse() + "%");
+        }
+
+        // contains tetep scan, tapi "0812 3456" juga ketemu kalo disimpennya "0812-3456"
+        return builder.or(
+                builder.like(root.get("phone"), "%" + request.getPhone() + "%"),
+                builder.like(root.get("phoneDigits"), "%" + digits + "%")
+        );
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<ContactResponse> searchByCursor(User user, SearchContactRequest request) {
+        // Urutan harus unik dan stabil, id dipake buat pemisah kalo nama sama
+        Specification<Contact> specification = searchSpecification(user, request);
+        if (!request.getCursor().isEmpty()) {
+            specification = specification.and(after(decodeCursor(request.getCursor())));
+        }
+
+        // Ambil 1 data lebih buat tau masih ada page berikutnya atau gk, tanpa count
+        return contactRepository.findResponseSlice(specification, PageRequest.of(0, request.getSize(), CURSOR_SORT));
+    }
+
+    // Cursor = posisi data terakhir di page ini (lastName, firstName, id), dikirim balik sama client apa adanya
+    public String toCursor(ContactResponse last) {
+        String key = last.getLastName() + CURSOR_SEPARATOR + last.getFirstName() + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(CURSOR_SEPARATOR, -1);
+            if (key.length == 3) return key;
+        } catch (IllegalArgumentException ignored) {
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+
+    // WHERE (last_name, first_name, id) > (?, ?, ?), bisa langsung seek pake index (username, last_name, first_name, id)
+    private Specification<Contact> after(String[] key) {
+        return (root, query, builder) -> builder.or(
+                builder.greaterThan(root.get("lastName"), key[0]),
+                builder.and(
+                        builder.equal(root.get("lastName"), key[0]),
+                        builder.greaterThan(root.get("firstName"), key[1])),
+                builder.and(
+                        builder.equal(root.get("lastName"), key[0]),
+                        builder.equal(root.get("firstName"), key[1]),
+                        builder.greaterThan(root.get("id"), key[2]))
+        );
+    }
+
+    // "Muhammad Ahya" -> "+muhammad* +ahya*", operator boolean mode dari input dibuang
+    private String toFulltextQuery(String... keywords) {
+        StringBuilder match = new StringBuilder();
+        for (String keyword : keywords) {
+            if (keyword == null) continue;
+            for (String word : keyword.split("[^\\p{L}\\p{N}_]+")) {
+                if (word.length() < fulltextMinTokenSize) continue;
+                if (!match.isEmpty()) match.append(' ');
+                match.append('+').append(word).append('*');
+            }
+        }
+        return match.isEmpty() ? null : match.toString();
+    }
+
+    private Page<ContactResponse> searchWithIndex(User user, SearchContactRequest request) {
+        // Index cuma ngasih id yang cocok (udah urut), database cuma diambil buat 1 page
+        List<String> ids = contactSearchIndex.search(user.getUsername(), request.getName(), request.getEmail(), request.getPhone());
+
+        Pageable pageable = PageRequest.of(request.getPage(), request.getSize());
+        int from = (int) Math.min(ids.size(), pageable.getOffset());
+        int to = Math.min(ids.size(), from + pageable.getPageSize());
+        List<String> pageIds = ids.subList(from, to);
+        if (pageIds.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, ids.size());
+        }
 
-        // Convert Contact to ContactResponse
-        List<ContactResponse> contactResponses = contacts.getContent().stream()
-                .map(this::toContactResponse) // sama aja kayak map(contact -> toContactResponse(contact))
-                .toList(); // Convert jadiin List
+        // Urutannya ngikutin index, contact yang barusan dihapus dilewatin
+        Map<String, ContactResponse> contacts = contactRepository.findResponsesByUsernameAndIdIn(user.getUsername(), pageIds).stream()
+                .collect(Collectors.toMap(ContactResponse::getId, Function.identity()));
+        List<ContactResponse> contactResponses = pageIds.stream()
+                .map(contacts::get)
+                .filter(Objects::nonNull)
+                .toList();
 
-        // PageImpl<>( contentNyaApa, PageAble, totalElement)
-        return new PageImpl<>(contactResponses, pageable, contacts.getTotalElements());
+        return new PageImpl<>(contactResponses, pageable, ids.size());
     }
 }
 
@@ -0,0 +1,190 @@
+package maa.restful.service;
+
+import lombok.extern.slf4j.Slf4j;
+import maa.restful.entity.User;
+import maa.restful.model.ContactResponse;
+import maa.restful.repository.ContactRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/*
+ * Autocomplete contact berdasarkan awalan firstName / lastName / email, buat GET /api/contacts/suggest
+ * - Per user disimpen sorted map "kata\0id" -> contact, jadi cari awalan tinggal ambil subMap
+ * - Dibangun pas pertama kali dipake, terus diupdate dari ContactChangedEvent
+ * - User yang contactnya lebih dari max-contacts gk disimpen di memory, langsung query LIKE 'q%' ke database
+ * - User yang lama gk dipake dibuang berkala (idle-ms), jumlah user juga dibatasi (max-users)
+ * */
+
+@Slf4j
+@Component
+public class ContactSuggestIndex {
+
+    private static final char SEPARATOR = '\u0000';
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Value("${app.contact.suggest.max-users:1000}")
+    private int maxUsers;
+
+    @Value("${app.contact.suggest.max-contacts:20000}")
+    private int maxContacts;
+
+    @Value("${app.contact.suggest.idle-ms:900000}")
+    private long idleMillis;
+
+    private final Map<String, Suggestions> users = new ConcurrentHashMap<>();
+
+    public List<ContactResponse> suggest(User user, String query, int limit) {
+        String prefix = query.toLowerCase(Locale.ROOT);
+        Suggestions suggestions = load(user);
+        if (suggestions.overflow) {
+            return contactRepository.findResponsesByPrefix(user.getUsername(), escape(query) + "%", PageRequest.of(0, limit));
+        }
+        return suggestions.suggest(prefix, limit);
+    }
+
+    public void invalidate(String username) {
+        users.remove(username);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContactChanged(ContactChangedEvent event) {
+        Suggestions suggestions = users.get(event.username());
+        if (suggestions != null) suggestions.apply(event);
+    }
+
+    @Scheduled(fixedDelayString = "${app.contact.suggest.idle-ms:900000}", initialDelayString = "${app.contact.suggest.idle-ms:900000}")
+    public void evictIdle() {
+        long idleSince = System.currentTimeMillis() - idleMillis;
+        users.values().removeIf(suggestions -> suggestions.lastUsedAt < idleSince);
+    }
+
+    private Suggestions load(User user) {
+        long now = System.currentTimeMillis();
+        Suggestions suggestions = users.get(user.getUsername());
+        if (suggestions == null) {
+            if (users.size() >= maxUsers) evictLeastRecentlyUsed();
+            suggestions = users.computeIfAbsent(user.getUsername(), key -> new Suggestions());
+        }
+        suggestions.lastUsedAt = now;
+
+        // Cuma 1 thread yang ngisi, event yang masuk selama loading ditampung dulu
+        synchronized (suggestions.loadLock) {
+            if (!suggestions.isLoaded()) {
+                if (contactRepository.countByUser(user) > maxContacts) {
+                    suggestions.finishLoad(List.of(), true);
+                } else {
+                    List<Object[]> rows = contactRepository.findSearchFieldsByUsername(user.getUsername());
+                    suggestions.finishLoad(rows, false);
+                    log.debug("Built contact suggestions for {} with {} contacts", user.getUsername(), rows.size());
+                }
+            }
+        }
+        return suggestions;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        users.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().lastUsedAt))
+                .ifPresent(entry -> users.remove(entry.getKey(), entry.getValue()));
+    }
+
+    // Escape char-nya '!' (lihat ContactRepository.findResponsesByPrefix)
+    private static String escape(String query) {
+        return query.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private static class Suggestions {
+
+        private final Object loadLock = new Object();
+
+        private volatile long lastUsedAt;
+
+        private volatile boolean overflow;
+
+        // "kata\0id" -> contact, dibaca tanpa lock
+        private final ConcurrentSkipListMap<String, ContactResponse> entries = new ConcurrentSkipListMap<>();
+
+        // id -> contact, buat tau key mana aja yang harus dihapus pas update / delete
+        private final Map<String, ContactResponse> contacts = new HashMap<>();
+
+        private List<ContactChangedEvent> pending = new ArrayList<>();
+
+        synchronized boolean isLoaded() {
+            return pending == null;
+        }
+
+        synchronized void finishLoad(List<Object[]> rows, boolean overflow) {
+            this.overflow = overflow;
+            for (Object[] row : rows) {
+                put(new ContactResponse((String) row[0], (String) row[1], (String) row[2], (String) row[3], (String) row[4]));
+            }
+            // Event yang dateng pas lagi query, diterapin lagi (upsert / delete aman diulang)
+            if (!overflow) {
+                for (ContactChangedEvent event : pending) {
+                    applyNow(event);
+                }
+            }
+            pending = null;
+        }
+
+        synchronized void apply(ContactChangedEvent event) {
+            if (pending != null) {
+                pending.add(event);
+            } else if (!overflow) {
+                applyNow(event);
+            }
+        }
+
+        private void applyNow(ContactChangedEvent event) {
+            if (event.deleted()) {
+                remove(event.contactId());
+            } else {
+                put(new ContactResponse(event.contactId(), event.firstName(), event.lastName(), event.email(), event.phone()));
+            }
+        }
+
+        private void put(ContactResponse contact) {
+            remove(contact.getId());
+            contacts.put(contact.getId(), contact);
+            for (String key : keys(contact)) {
+                entries.put(key, contact);
+            }
+        }
+
+        private void remove(String id) {
+            ContactResponse contact = contacts.remove(id);
+            if (contact == null) return;
+            for (String key : keys(contact)) {
+                entries.remove(key);
+            }
+        }
+
+        private static List<String> keys(ContactResponse contact) {
+            List<String> keys = new ArrayList<>(3);
+            for (String value : new String[]{contact.getFirstName(), contact.getLastName(), contact.getEmail()}) {
+                if (value != null) keys.add(value.toLowerCase(Locale.ROOT) + SEPARATOR + contact.getId());
+            }
+            return keys;
+        }
+
+        List<ContactResponse> suggest(String prefix, int limit) {
+            // Semua key yang diawali prefix ada di antara prefix dan prefix + Character.MAX_VALUE
+            Map<String, ContactResponse> result = new LinkedHashMap<>();
+            for (ContactResponse contact : entries.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+                result.putIfAbsent(contact.getId(), contact);
+                if (result.size() >= limit) break;
+            }
+            return new ArrayList<>(result.values());
+        }
+    }
+}
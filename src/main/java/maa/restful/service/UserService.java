@@ -6,10 +6,12 @@ import maa.restful.model.RegisterUserRequest;
 import maa.restful.model.UpdateUserRequest;
 import maa.restful.model.UserResponse;
 import maa.restful.repository.UserRepository;
-import maa.restful.security.BCrypt;
+import maa.restful.security.PasswordHasher;
+import maa.restful.security.TokenCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Objects;
@@ -23,24 +25,37 @@ public class UserService {
     @Autowired
     private ValidationService validationService;
 
-    // Transactional artinya kalo gagal datanya gk disimpen ke database dan harus isi/kirim ulang supaya bisa kesimpan
-    @Transactional
+    @Autowired
+    private TokenCache tokenCache;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Hashing dulu di luar transaksi, biar nunggu antrian PasswordHasher gk megang koneksi database
+    // Transaksinya (TransactionTemplate) artinya kalo gagal datanya gk disimpen ke database dan harus isi/kirim ulang supaya bisa kesimpan
     public void register(RegisterUserRequest request) throws Exception {
         // Validation
         validationService.validate(request);
 
-        // Setup Exception kalo datanya double (udah ada username yang sama)
-        if (userRepository.existsById(request.getUsername())) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,"Username is already registered");
-        }
+        String password = passwordHasher.hash(request.getPassword()); // Hashing Password
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // Setup Exception kalo datanya double (udah ada username yang sama)
+            if (userRepository.existsById(request.getUsername())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,"Username is already registered");
+            }
 
-        // Kalo gk ada error
-        User user = new User();
-        user.setName(request.getName());
-        user.setPassword(BCrypt.hashpw(request.getPassword(), BCrypt.gensalt())); // Hashing Password
-        user.setUsername(request.getUsername());
+            // Kalo gk ada error
+            User user = new User();
+            user.setName(request.getName());
+            user.setPassword(password);
+            user.setUsername(request.getUsername());
 
-        userRepository.save(user); // Save to database
+            userRepository.save(user); // Save to database
+        });
     }
 
     // Params user akan diisi otomatis oleh Controller pada Endpoint "/api/users/current"
@@ -58,10 +73,14 @@ public class UserService {
         }
 
         if (Objects.nonNull(request.getPassword())) {
-            user.setPassword(BCrypt.hashpw(request.getPassword(),BCrypt.gensalt()));
+            user.setPassword(passwordHasher.hash(request.getPassword()));
         }
 
         userRepository.save(user);
+
+        // Data user di cache udah basi, termasuk semua session-nya
+        tokenCache.invalidateUser(user.getUsername());
+
         return UserResponse.builder()
                 .username(user.getUsername())
                 .name(request.getName())
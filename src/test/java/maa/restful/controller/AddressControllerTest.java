@@ -21,6 +21,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -123,6 +124,67 @@ class AddressControllerTest {
 
     }
 
+    @Test
+    void testCreateManyAddressesSuccess() throws Exception {
+        // 120 address, lebih dari hibernate.jdbc.batch_size
+        List<CreateAddressRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            CreateAddressRequest request = new CreateAddressRequest();
+            request.setStreet("Jl. Nomor " + i);
+            request.setCountry("Indonesia");
+            requests.add(request);
+        }
+        long before = addressRepository.count();
+
+        mockMvc.perform(
+                post("/api/contacts/" + dummyContact.getId() + "/addresses:batch")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(requests))
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<AddressResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertNull(response.getErrors());
+            assertEquals(120, response.getData().size());
+            assertEquals("Jl. Nomor 119", response.getData().get(119).getStreet());
+            assertTrue(addressRepository.existsById(response.getData().get(0).getId()));
+            assertEquals(before + 120, addressRepository.count());
+        });
+    }
+
+    @Test
+    void testCreateManyAddressesBadRequest() throws Exception {
+        // 1 address gk valid, semuanya gk jadi dibuat
+        CreateAddressRequest valid = new CreateAddressRequest();
+        valid.setCountry("Indonesia");
+        CreateAddressRequest invalid = new CreateAddressRequest();
+        invalid.setCity("Jakarta");
+        long before = addressRepository.count();
+
+        mockMvc.perform(
+                post("/api/contacts/" + dummyContact.getId() + "/addresses:batch")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(List.of(valid, invalid)))
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isBadRequest()
+        );
+        assertEquals(before, addressRepository.count());
+
+        mockMvc.perform(
+                post("/api/contacts/invalid-contact-id/addresses:batch")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(List.of(valid)))
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isNotFound()
+        );
+    }
+
     @Test
     void testCreateAddressSuccessOnlyCountry() throws Exception {
         // Bikin request
@@ -422,6 +484,35 @@ class AddressControllerTest {
         });
     }
 
+    @Test
+    void testGetAndDeleteAddressNotFoundMessage() throws Exception {
+        // Contact sama address dicek dalam 1 query, tapi pesan errornya tetep dibedain
+        mockMvc.perform(
+                get("/api/contacts/"+ "invalid-contact-id" +"/addresses/" + dummyAddress.getId())
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isNotFound()
+        ).andDo(result -> {
+            WebResponse<AddressResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertTrue(response.getErrors().contains("Contact is not found"));
+        });
+
+        mockMvc.perform(
+                delete("/api/contacts/"+ dummyContact.getId() +"/addresses/" + "invalid-address-id")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isNotFound()
+        ).andDo(result -> {
+            WebResponse<String> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertTrue(response.getErrors().contains("Address is not found"));
+        });
+
+        // Address-nya gk ikut kehapus
+        assertTrue(addressRepository.existsById(dummyAddress.getId()));
+    }
+
     @Test
     void testGetAddressUnauthorized() throws Exception {
         // Kirim request
@@ -23,6 +23,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -196,4 +197,36 @@ class AuthControllerTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void testLogoutTokenRejected() throws Exception {
+        userAdmin.login();
+        User admin = userAdmin.get();
+
+        // Request pertama biar token masuk ke cache
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        mockMvc.perform(
+                delete("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        // Token yang udah logout gk boleh lolos walaupun sempet di cache
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+    }
+
+}
@@ -4,15 +4,19 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import maa.restful.dummyData.ContactBuilder;
 import maa.restful.dummyData.UserAdmin;
+import maa.restful.entity.Address;
 import maa.restful.entity.Contact;
 import maa.restful.entity.User;
+import maa.restful.model.BulkDeleteContactRequest;
 import maa.restful.model.ContactResponse;
 import maa.restful.model.CreateContactRequest;
+import maa.restful.model.ImportContactResponse;
 import maa.restful.model.UpdateContactRequest;
 import maa.restful.model.WebResponse;
 import maa.restful.repository.AddressRepository;
 import maa.restful.repository.ContactRepository;
 import maa.restful.repository.UserRepository;
+import maa.restful.service.ContactSuggestIndex;
 import maa.restful.service.ValidationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,6 +29,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -59,6 +64,9 @@ class ContactControllerTest {
     @Autowired
     private AddressRepository addressRepository;
 
+    @Autowired
+    private ContactSuggestIndex contactSuggestIndex;
+
     @BeforeEach
     void setup() throws Exception{
         addressRepository.deleteAll();
@@ -105,6 +113,130 @@ class ContactControllerTest {
         });
     }
 
+    @Test
+    void testImportContactsNdjson() throws Exception {
+        User admin = userAdmin.get();
+        String body = """
+                {"firstName": "Ahya", "lastName": "Aulia", "email": "ahya@example.com", "phone": "08123"}
+                {"firstName": "", "lastName": "Kosong"}
+
+                bukan json
+                {"firstName": "Budi", "lastName": "Santoso", "email": "budi@example.com"}
+                """;
+
+        mockMvc.perform(
+                post("/api/contacts/import")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_NDJSON_VALUE)
+                        .content(body)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<ImportContactResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertNull(response.getErrors());
+            assertEquals(4, response.getData().getTotal());
+            assertEquals(2, response.getData().getImported());
+            assertEquals(2, response.getData().getFailed());
+            assertEquals(2L, response.getData().getErrors().get(0).getLine());
+            assertEquals(4L, response.getData().getErrors().get(1).getLine());
+            assertEquals(2, contactRepository.count());
+        });
+    }
+
+    @Test
+    void testImportContactsLineTooLong() throws Exception {
+        User admin = userAdmin.get();
+        String body = "{\"firstName\": \"" + "x".repeat(70000) + "\"}\n" +
+                "{\"lastName\": \"Kosong\", \"email\": \"bukan email\"}\n" +
+                "{\"firstName\": \"Ahya\", \"lastName\": \"Aulia\"}\n";
+
+        mockMvc.perform(
+                post("/api/contacts/import")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_NDJSON_VALUE)
+                        .content(body)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<ImportContactResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(3, response.getData().getTotal());
+            assertEquals(1, response.getData().getImported());
+            assertEquals(2, response.getData().getFailed());
+
+            // Baris kepanjangan dibuang, baris berikutnya tetep kebaca
+            assertEquals(1L, response.getData().getErrors().get(0).getLine());
+            assertEquals("Line is too long", response.getData().getErrors().get(0).getMessage());
+
+            // Pesan validasi per field, urut nama field
+            assertEquals(2L, response.getData().getErrors().get(1).getLine());
+            assertEquals("email: must be a well-formed email address, firstName: must not be blank",
+                    response.getData().getErrors().get(1).getMessage());
+        });
+
+        // CSV juga sama, row yang kepanjangan gk ngerusak row berikutnya
+        String csv = "firstName,lastName\n" +
+                "\"" + "y".repeat(70000) + "\",Panjang\n" +
+                "Budi,Santoso\n";
+
+        mockMvc.perform(
+                post("/api/contacts/import")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType("text/csv")
+                        .content(csv)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<ImportContactResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(2, response.getData().getTotal());
+            assertEquals(1, response.getData().getImported());
+            assertEquals(2L, response.getData().getErrors().get(0).getLine());
+            assertEquals("Line is too long", response.getData().getErrors().get(0).getMessage());
+        });
+    }
+
+    @Test
+    void testImportContactsCsv() throws Exception {
+        User admin = userAdmin.get();
+        String body = "firstName,lastName,email,phone\r\n" +
+                "Ahya,Aulia,ahya@example.com,08123\r\n" +
+                "\"Budi, Jr\",Santoso,budi@example.com,\r\n" +
+                ",Kosong,kosong@example.com,08999\r\n";
+
+        mockMvc.perform(
+                post("/api/contacts/import")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType("text/csv")
+                        .content(body)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<ImportContactResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(3, response.getData().getTotal());
+            assertEquals(2, response.getData().getImported());
+            assertEquals(1, response.getData().getFailed());
+            assertEquals(4L, response.getData().getErrors().get(0).getLine());
+        });
+
+        // Data yang ke-import bisa langsung dicari, termasuk phone_digits / email_domain-nya
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("email", "@example.com")
+                        .param("sort", "firstName")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(2, response.getData().size());
+            assertEquals("Budi, Jr", response.getData().get(1).getFirstName());
+        });
+    }
+
     @Test
     void testCreateContactWithoutToken() throws Exception{
         // Bikin Request
@@ -336,6 +468,63 @@ class ContactControllerTest {
         });
     }
 
+    @Test
+    void testDeleteManyContactsSuccess() throws Exception {
+        User admin = userAdmin.get();
+        Contact first = contactBuilder.build(admin, "First", "Contact");
+        Contact second = contactBuilder.build(admin, "Second", "Contact");
+        Contact third = contactBuilder.build(admin, "Third", "Contact");
+
+        for (Contact contact : List.of(first, second)) {
+            Address address = new Address();
+            address.setId(UUID.randomUUID().toString());
+            address.setContact(contact);
+            address.setCountry("Indonesia");
+            addressRepository.save(address);
+        }
+
+        BulkDeleteContactRequest request = new BulkDeleteContactRequest();
+        request.setIds(List.of(first.getId(), second.getId(), "not-found"));
+
+        mockMvc.perform(
+                delete("/api/contacts")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(request))
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<Integer> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertNull(response.getErrors());
+
+            // Id yang gk ada diabaikan
+            assertEquals(2, response.getData());
+
+            // Contact sama address-nya harus hilang, contact lain tetep ada
+            assertFalse(contactRepository.existsById(first.getId()));
+            assertFalse(contactRepository.existsById(second.getId()));
+            assertTrue(contactRepository.existsById(third.getId()));
+            assertEquals(0, addressRepository.count());
+        });
+    }
+
+    @Test
+    void testDeleteManyContactsBadRequest() throws Exception {
+        BulkDeleteContactRequest request = new BulkDeleteContactRequest();
+        request.setIds(List.of());
+
+        mockMvc.perform(
+                delete("/api/contacts")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(request))
+                        .header("X-API-TOKEN", userAdmin.get().getToken())
+        ).andExpectAll(
+                status().isBadRequest()
+        );
+    }
+
     @Test
     void testDeleteContactNotFound() throws Exception {
         User admin = userAdmin.get();
@@ -417,6 +606,62 @@ class ContactControllerTest {
         });
     }
 
+    @Test
+    void testGetAndSearchContactExpandAddresses() throws Exception {
+        User admin = userAdmin.get();
+        Contact ahya = contactBuilder.build(admin, "Ahya", "Aulia");
+        contactBuilder.build(admin, "Dummy", "Contact");
+
+        for (String city : List.of("Jakarta", "Bandung")) {
+            Address address = new Address();
+            address.setId(UUID.randomUUID().toString());
+            address.setContact(ahya);
+            address.setCity(city);
+            address.setCountry("Indonesia");
+            addressRepository.save(address);
+        }
+
+        mockMvc.perform(
+                get("/api/contacts/" + ahya.getId())
+                        .param("expand", "addresses")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<ContactResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(2, response.getData().getAddresses().size());
+        });
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("expand", "addresses")
+                        .param("sort", "firstName")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(2, response.getData().size());
+            assertEquals(2, response.getData().get(0).getAddresses().size());
+            // Contact tanpa address dapet list kosong
+            assertEquals(0, response.getData().get(1).getAddresses().size());
+        });
+
+        // Tanpa expand, addresses gk ikut dikirim
+        mockMvc.perform(
+                get("/api/contacts/" + ahya.getId())
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<ContactResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertNull(response.getData().getAddresses());
+        });
+    }
+
     @Test
     void testGetContactNotFound() throws Exception {
         User admin = userAdmin.get();
@@ -622,6 +867,213 @@ class ContactControllerTest {
         });
     }
 
+    @Test
+    void testSearchUsingSort() throws Exception {
+        User admin = userAdmin.get();
+        for (int i = 10; i < 30; i++) {
+            contactBuilder.build(admin, "Muhammad" + i, "Ahya Aulia " + (40 - i));
+        }
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("sort", "lastName")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(10, response.getData().size());
+            assertEquals("Ahya Aulia 11", response.getData().get(0).getLastName());
+            assertEquals("Ahya Aulia 20", response.getData().get(9).getLastName());
+        });
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("sort", "firstName")
+                        .param("direction", "desc")
+                        .param("page", "1")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(10, response.getData().size());
+            assertEquals("Muhammad19", response.getData().get(0).getFirstName());
+            assertEquals("Muhammad10", response.getData().get(9).getFirstName());
+        });
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("sort", "phone")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isBadRequest()
+        );
+    }
+
+    @Test
+    void testSearchUsingSortLastNameTies() throws Exception {
+        User admin = userAdmin.get();
+        contactBuilder.build(admin, "Zaki", "Sama");
+        contactBuilder.build(admin, "Ahya", "Sama");
+        contactBuilder.build(admin, "Budi", "Sama");
+
+        // lastName sama diurutin pake firstName (sama kayak cursor), bukan id random
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("sort", "lastName")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(List.of("Ahya", "Budi", "Zaki"), response.getData().stream().map(ContactResponse::getFirstName).toList());
+        });
+    }
+
+    @Test
+    void testSearchUsingEmailAddressAndDomain() throws Exception {
+        User admin = userAdmin.get();
+        Contact ahya = contactBuilder.build(admin, "Ahya", "Aulia");
+        ahya.setEmail("Ahya@Company.com");
+        contactRepository.save(ahya);
+        Contact budi = contactBuilder.build(admin, "Budi", "Santoso");
+        budi.setEmail("budi@company.com");
+        contactRepository.save(budi);
+        contactBuilder.build(admin, "Dummy", "Contact"); // email = Dummy@example.com
+
+        // Email lengkap = persis, gk peduli huruf besar kecil
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("email", "ahya@company.com")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(1, response.getData().size());
+            assertEquals(ahya.getId(), response.getData().get(0).getId());
+        });
+
+        // Semua email di 1 domain
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("email", "@company.com")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(2, response.getData().size());
+        });
+
+        // Potongan email tetep pake LIKE
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("email", "company")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(2, response.getData().size());
+        });
+
+        // Ada @ tapi domainnya belum lengkap (masih diketik), tetep LIKE
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("email", "budi@comp")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(1, response.getData().size());
+            assertEquals(budi.getId(), response.getData().get(0).getId());
+        });
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("email", "@company.")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(2, response.getData().size());
+        });
+    }
+
+    @Test
+    void testSearchUsingPhoneMatch() throws Exception {
+        User admin = userAdmin.get();
+        Contact ahya = contactBuilder.build(admin, "Ahya", "Aulia");
+        ahya.setPhone("+62 812-3456-7890");
+        contactRepository.save(ahya);
+        contactBuilder.build(admin, "Dummy", "Contact"); // phone = 123123123
+
+        // Formatnya beda tapi angkanya sama
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("phone", "6281234567890")
+                        .param("phoneMatch", "exact")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(1, response.getData().size());
+            assertEquals(ahya.getId(), response.getData().get(0).getId());
+        });
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("phone", "7890")
+                        .param("phoneMatch", "suffix")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(1, response.getData().size());
+            assertEquals("+62 812-3456-7890", response.getData().get(0).getPhone());
+        });
+
+        // Contains juga ngebandingin angkanya aja
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("phone", "3456 7890")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+            assertEquals(1, response.getData().size());
+        });
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("phone", "7890")
+                        .param("phoneMatch", "prefix")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isBadRequest()
+        );
+    }
+
     @Test
     void testSearchUsingSizeMax20() throws Exception {
         User admin = userAdmin.get();
@@ -655,4 +1107,177 @@ class ContactControllerTest {
             assertEquals(20,response.getPaging().getSize()); // Max data per page
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSearchUsingCursor() throws Exception {
+        User admin = userAdmin.get();
+
+        // Bikin dummy contact di database
+        for (int i = 1; i <= 25; i++) {
+            contactBuilder.build(admin,"Muhammad" + i,"Ahya Aulia " + i);
+        }
+
+        // Jalan dari page pertama sampe nextCursor null
+        java.util.Set<String> ids = new java.util.HashSet<>();
+        String cursor = "";
+        int pages = 0;
+        while (cursor != null) {
+            String body = mockMvc.perform(
+                    get("/api/contacts")
+                            .param("name","Muhammad")
+                            .param("cursor", cursor)
+                            .accept(MediaType.APPLICATION_JSON_VALUE)
+                            .header("X-API-TOKEN", admin.getToken())
+            ).andExpectAll(
+                    status().isOk()
+            ).andReturn().getResponse().getContentAsString();
+
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(body, new TypeReference<>() {});
+            assertNull(response.getErrors());
+            assertNull(response.getPaging().getTotalPage()); // Pake cursor gk ada total
+            response.getData().forEach(contact -> ids.add(contact.getId()));
+
+            cursor = response.getPaging().getNextCursor();
+            pages++;
+        }
+
+        // 10 + 10 + 5, gk ada yang dobel / kelewat
+        assertEquals(3, pages);
+        assertEquals(25, ids.size());
+    }
+
+    @Test
+    void testSearchUsingInvalidCursor() throws Exception {
+        User admin = userAdmin.get();
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("cursor", "bukan-cursor")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isBadRequest()
+        );
+    }
+
+    @Test
+    void testSearchWithoutCount() throws Exception {
+        User admin = userAdmin.get();
+
+        for (int i = 1; i <= 15; i++) {
+            contactBuilder.build(admin,"Muhammad" + i,"Ahya Aulia " + i);
+        }
+
+        for (int page = 0; page <= 1; page++) {
+            String body = mockMvc.perform(
+                    get("/api/contacts")
+                            .param("count", "none")
+                            .param("page", String.valueOf(page))
+                            .accept(MediaType.APPLICATION_JSON_VALUE)
+                            .header("X-API-TOKEN", admin.getToken())
+            ).andExpectAll(
+                    status().isOk()
+            ).andReturn().getResponse().getContentAsString();
+
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(body, new TypeReference<>() {});
+            assertNull(response.getErrors());
+            assertNull(response.getPaging().getTotalPage());
+
+            // Page 0 isinya 10 dan masih ada lanjutannya, page 1 sisa 5
+            assertEquals(page == 0 ? 10 : 5, response.getData().size());
+            assertEquals(page == 0, response.getPaging().getHasNext());
+        }
+    }
+
+    @Test
+    void testSearchApproxCount() throws Exception {
+        User admin = userAdmin.get();
+
+        for (int i = 1; i <= 25; i++) {
+            contactBuilder.build(admin,"Muhammad" + i,"Ahya Aulia " + i);
+        }
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("count", "approx")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+
+            assertNull(response.getErrors());
+            assertEquals(10, response.getData().size());
+            assertEquals(3, response.getPaging().getTotalPage());
+            assertTrue(response.getPaging().getHasNext());
+        });
+    }
+
+    @Test
+    void testSearchInvalidCount() throws Exception {
+        User admin = userAdmin.get();
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .param("count", "semua")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isBadRequest()
+        );
+    }
+
+    private List<ContactResponse> suggest(String token, String q) throws Exception {
+        String body = mockMvc.perform(
+                get("/api/contacts/suggest")
+                        .param("q", q)
+                        .param("limit", "5")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn().getResponse().getContentAsString();
+
+        WebResponse<List<ContactResponse>> response = objectMapper.readValue(body, new TypeReference<>() {});
+        assertNull(response.getErrors());
+        return response.getData();
+    }
+
+    @Test
+    void testSuggest() throws Exception {
+        User admin = userAdmin.get();
+
+        // Data lama dari test lain dihapus langsung lewat repository, jadi index-nya dibuang dulu
+        contactSuggestIndex.invalidate(admin.getUsername());
+
+        for (int i = 1; i <= 15; i++) {
+            contactBuilder.build(admin,"Muhammad" + i,"Ahya Aulia " + i);
+        }
+        contactBuilder.build(admin, "Budi", "Santoso");
+
+        assertEquals(5, suggest(admin.getToken(), "muh").size()); // Dibatasi limit
+        assertEquals("Santoso", suggest(admin.getToken(), "SANTO").get(0).getLastName());
+        assertEquals(1, suggest(admin.getToken(), "budi@").size()); // Email
+        assertEquals(0, suggest(admin.getToken(), "hammad").size()); // Harus dari awal kata
+        assertEquals(0, suggest(admin.getToken(), "").size());
+
+        // Contact baru lewat API harus langsung muncul
+        CreateContactRequest request = new CreateContactRequest();
+        request.setFirstName("Muhiddin");
+        request.setLastName("Zain");
+        request.setEmail("muhiddin@example.com");
+        request.setPhone("123123123");
+        mockMvc.perform(
+                post("/api/contacts")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(request))
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        assertEquals("Muhiddin", suggest(admin.getToken(), "muhi").get(0).getFirstName());
+    }
+}
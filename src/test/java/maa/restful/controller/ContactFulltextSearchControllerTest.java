@@ -0,0 +1,163 @@
+package maa.restful.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import maa.restful.dummyData.ContactBuilder;
+import maa.restful.dummyData.UserAdmin;
+import maa.restful.entity.Contact;
+import maa.restful.entity.User;
+import maa.restful.model.ContactResponse;
+import maa.restful.model.WebResponse;
+import maa.restful.repository.AddressRepository;
+import maa.restful.repository.ContactRepository;
+import maa.restful.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Search make index FULLTEXT, butuh contacts_fulltext_idx dari database.sql
+@SpringBootTest(properties = "app.contact.search.engine=fulltext")
+@AutoConfigureMockMvc
+class ContactFulltextSearchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserAdmin userAdmin;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactBuilder contactBuilder;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @BeforeEach
+    void setup() throws Exception {
+        addressRepository.deleteAll();
+        contactRepository.deleteAll();
+        userRepository.deleteAll();
+        userAdmin.reset();
+        userAdmin.login();
+    }
+
+    private WebResponse<List<ContactResponse>> search(String param, String value) throws Exception {
+        String body = mockMvc.perform(
+                get("/api/contacts")
+                        .param(param, value)
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", userAdmin.get().getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn().getResponse().getContentAsString();
+
+        return objectMapper.readValue(body, new TypeReference<>() {});
+    }
+
+    @Test
+    void testSearchUsingName() throws Exception {
+        User admin = userAdmin.get();
+        for (int i = 1; i <= 100; i++) {
+            contactBuilder.build(admin, "Muhammad" + i, "Ahya Aulia " + i);
+        }
+
+        WebResponse<List<ContactResponse>> response = search("name", "muhammad");
+        assertNull(response.getErrors());
+        assertEquals(10, response.getData().size());
+        assertEquals(10, response.getPaging().getTotalPage());
+
+        // "1" kependekan buat FULLTEXT, tapi tetep dicek pake LIKE: Aulia 1, 10 - 19, 100
+        response = search("name", "Aulia 1");
+        assertEquals(10, response.getData().size());
+        assertEquals(2, response.getPaging().getTotalPage());
+
+        response = search("email", "Muhammad5@");
+        assertEquals(1, response.getData().size());
+        assertEquals("Muhammad5", response.getData().get(0).getFirstName());
+    }
+
+    @Test
+    void testSearchUsingPhoneOnly() throws Exception {
+        User admin = userAdmin.get();
+        for (int i = 1; i <= 15; i++) {
+            contactBuilder.build(admin, "Muhammad" + i, "Ahya Aulia " + i);
+        }
+
+        // Phone gk masuk index FULLTEXT, jadi balik ke LIKE
+        WebResponse<List<ContactResponse>> response = search("phone", "123123");
+        assertEquals(10, response.getData().size());
+        assertEquals(2, response.getPaging().getTotalPage());
+    }
+
+    @Test
+    void testSearchUsingNameAndFormattedPhone() throws Exception {
+        User admin = userAdmin.get();
+        Contact ahya = contactBuilder.build(admin, "Ahya", "Aulia");
+        ahya.setPhone("+62 812-3456-7890");
+        contactRepository.save(ahya);
+        contactBuilder.build(admin, "Ahya", "Dummy");
+
+        // Kandidat dari FULLTEXT (name), phone dicocokin angkanya kayak search biasa
+        String body = mockMvc.perform(
+                get("/api/contacts")
+                        .param("name", "ahya")
+                        .param("phone", "812 3456")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn().getResponse().getContentAsString();
+
+        WebResponse<List<ContactResponse>> response = objectMapper.readValue(body, new TypeReference<>() {});
+        assertEquals(1, response.getData().size());
+        assertEquals(ahya.getId(), response.getData().get(0).getId());
+    }
+
+    @Test
+    void testSearchWithoutCount() throws Exception {
+        User admin = userAdmin.get();
+        for (int i = 1; i <= 15; i++) {
+            contactBuilder.build(admin, "Muhammad" + i, "Ahya Aulia " + i);
+        }
+
+        // Lewat MATCH (name) sama yang balik ke LIKE (phone), dua-duanya gk pake COUNT(*)
+        for (String param : List.of("name", "phone")) {
+            for (int page = 0; page <= 1; page++) {
+                String body = mockMvc.perform(
+                        get("/api/contacts")
+                                .param(param, "name".equals(param) ? "muhammad" : "123123")
+                                .param("count", "none")
+                                .param("page", String.valueOf(page))
+                                .accept(MediaType.APPLICATION_JSON_VALUE)
+                                .header("X-API-TOKEN", admin.getToken())
+                ).andExpectAll(
+                        status().isOk()
+                ).andReturn().getResponse().getContentAsString();
+
+                WebResponse<List<ContactResponse>> response = objectMapper.readValue(body, new TypeReference<>() {});
+                assertNull(response.getPaging().getTotalPage());
+                assertEquals(page == 0 ? 10 : 5, response.getData().size());
+                assertEquals(page == 0, response.getPaging().getHasNext());
+            }
+        }
+    }
+}
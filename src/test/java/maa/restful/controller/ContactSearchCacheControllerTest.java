@@ -0,0 +1,128 @@
+package maa.restful.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import maa.restful.dummyData.ContactBuilder;
+import maa.restful.dummyData.UserAdmin;
+import maa.restful.entity.Contact;
+import maa.restful.entity.User;
+import maa.restful.model.ContactResponse;
+import maa.restful.model.CreateContactRequest;
+import maa.restful.model.UpdateContactRequest;
+import maa.restful.model.WebResponse;
+import maa.restful.repository.AddressRepository;
+import maa.restful.repository.ContactRepository;
+import maa.restful.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Hasil search di-cache, tapi create / update / delete lewat API harus langsung keliatan
+@SpringBootTest(properties = "app.contact.search-cache.enabled=true")
+@AutoConfigureMockMvc
+class ContactSearchCacheControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserAdmin userAdmin;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactBuilder contactBuilder;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @BeforeEach
+    void setup() throws Exception {
+        addressRepository.deleteAll();
+        contactRepository.deleteAll();
+        userRepository.deleteAll();
+        userAdmin.reset();
+        userAdmin.login();
+    }
+
+    private WebResponse<List<ContactResponse>> search(String name) throws Exception {
+        String body = mockMvc.perform(
+                get("/api/contacts")
+                        .param("name", name)
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", userAdmin.get().getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, new TypeReference<>() {});
+    }
+
+    @Test
+    void testSearchAfterCreateUpdateAndDelete() throws Exception {
+        User admin = userAdmin.get();
+        Contact ahya = contactBuilder.build(admin, "Ahya", "Aulia");
+
+        // Search pertama masuk ke cache, search kedua (beda huruf besar) ambil dari cache
+        assertEquals(1, search("ahya").getData().size());
+        assertEquals(1, search("AHYA").getData().size());
+
+        // Spasi ikut dicari, hasilnya harus sama kayak tanpa cache
+        assertEquals(0, search(" AHYA ").getData().size());
+
+        CreateContactRequest create = new CreateContactRequest();
+        create.setFirstName("Ahya");
+        create.setLastName("Kedua");
+        create.setEmail("ahya2@example.com");
+        create.setPhone("08123456789");
+        mockMvc.perform(
+                post("/api/contacts")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(create))
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        );
+        assertEquals(2, search("ahya").getData().size());
+
+        UpdateContactRequest update = new UpdateContactRequest();
+        update.setFirstName("Zaki");
+        mockMvc.perform(
+                put("/api/contacts/" + ahya.getId())
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(update))
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        );
+        assertEquals(1, search("ahya").getData().size());
+        assertEquals(1, search("zaki").getData().size());
+
+        mockMvc.perform(
+                delete("/api/contacts/" + ahya.getId())
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        );
+        assertEquals(0, search("zaki").getData().size());
+    }
+}
@@ -0,0 +1,157 @@
+package maa.restful.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import maa.restful.dummyData.ContactBuilder;
+import maa.restful.dummyData.UserAdmin;
+import maa.restful.entity.Contact;
+import maa.restful.entity.User;
+import maa.restful.model.ContactResponse;
+import maa.restful.model.UpdateContactRequest;
+import maa.restful.model.WebResponse;
+import maa.restful.repository.AddressRepository;
+import maa.restful.repository.ContactRepository;
+import maa.restful.repository.UserRepository;
+import maa.restful.service.ContactSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Search make index trigram di memory, hasilnya harus sama kayak LIKE
+@SpringBootTest(properties = "app.contact.search.engine=trigram")
+@AutoConfigureMockMvc
+class ContactTrigramSearchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserAdmin userAdmin;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactBuilder contactBuilder;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private ContactSearchIndex contactSearchIndex;
+
+    @BeforeEach
+    void setup() throws Exception {
+        addressRepository.deleteAll();
+        contactRepository.deleteAll();
+        userRepository.deleteAll();
+        userAdmin.reset();
+        userAdmin.login();
+
+        // Data di atas dihapus langsung lewat repository, index lama dibuang
+        contactSearchIndex.invalidate("admin");
+    }
+
+    private WebResponse<List<ContactResponse>> search(String param, String value) throws Exception {
+        String body = mockMvc.perform(
+                get("/api/contacts")
+                        .param(param, value)
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", userAdmin.get().getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn().getResponse().getContentAsString();
+
+        return objectMapper.readValue(body, new TypeReference<>() {});
+    }
+
+    @Test
+    void testSearchUsingName() throws Exception {
+        User admin = userAdmin.get();
+        for (int i = 1; i <= 100; i++) {
+            contactBuilder.build(admin, "Muhammad" + i, "Ahya Aulia " + i);
+        }
+
+        WebResponse<List<ContactResponse>> response = search("name", "muhammad");
+        assertNull(response.getErrors());
+        assertEquals(10, response.getData().size());
+        assertEquals(10, response.getPaging().getTotalPage());
+
+        // Aulia 1, 10 - 19, 100
+        response = search("name", "Aulia 1");
+        assertEquals(10, response.getData().size());
+        assertEquals(2, response.getPaging().getTotalPage());
+
+        response = search("email", "Muhammad5@");
+        assertEquals(1, response.getData().size());
+        assertEquals("Muhammad5", response.getData().get(0).getFirstName());
+    }
+
+    @Test
+    void testSearchAfterUpdateAndDelete() throws Exception {
+        User admin = userAdmin.get();
+        Contact ahya = contactBuilder.build(admin, "Ahya", "Aulia");
+        Contact dummy = contactBuilder.build(admin, "Dummy", "Contact");
+
+        // Index dibangun disini
+        assertEquals(1, search("name", "ahya").getData().size());
+
+        UpdateContactRequest request = new UpdateContactRequest();
+        request.setFirstName("Zaki");
+        mockMvc.perform(
+                put("/api/contacts/" + ahya.getId())
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(request))
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        mockMvc.perform(
+                delete("/api/contacts/" + dummy.getId())
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        // Index harus ikut berubah
+        assertEquals(0, search("name", "ahya").getData().size());
+        assertEquals(1, search("name", "zaki").getData().size());
+        assertEquals(0, search("name", "dummy").getData().size());
+    }
+
+    @Test
+    void testSearchUsingFormattedPhone() throws Exception {
+        User admin = userAdmin.get();
+        Contact ahya = contactBuilder.build(admin, "Ahya", "Aulia");
+        ahya.setPhone("+62 812-3456-7890");
+        contactRepository.save(ahya);
+        contactBuilder.build(admin, "Dummy", "Contact");
+
+        // Format beda tetep ketemu, sama kayak search biasa (phone_digits)
+        WebResponse<List<ContactResponse>> response = search("phone", "812 3456");
+        assertEquals(1, response.getData().size());
+        assertEquals(ahya.getId(), response.getData().get(0).getId());
+
+        assertEquals(1, search("phone", "(62) 812").getData().size());
+        assertEquals(0, search("phone", "0812-3456").getData().size());
+    }
+}
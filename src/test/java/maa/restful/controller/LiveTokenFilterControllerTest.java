@@ -0,0 +1,115 @@
+package maa.restful.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import maa.restful.dummyData.UserAdmin;
+import maa.restful.entity.User;
+import maa.restful.repository.AddressRepository;
+import maa.restful.repository.ContactRepository;
+import maa.restful.repository.UserRepository;
+import maa.restful.security.LiveTokenFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Test buat LiveTokenFilter yang dinyalain (mode 1 instance)
+@SpringBootTest(properties = "app.token-filter.enabled=true")
+@AutoConfigureMockMvc
+class LiveTokenFilterControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserAdmin userAdmin;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private LiveTokenFilter liveTokenFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        addressRepository.deleteAll();
+        contactRepository.deleteAll();
+        userRepository.deleteAll();
+        userAdmin.reset();
+        liveTokenFilter.rebuild();
+    }
+
+    private void getCurrent(String token, ResultMatcher expected) throws Exception {
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", token)
+        ).andExpect(expected);
+    }
+
+    private double falsePositives() {
+        return meterRegistry.counter("token.filter.false-positives").count();
+    }
+
+    @Test
+    void testLoginTokenAccepted() throws Exception {
+        userAdmin.login();
+
+        getCurrent(userAdmin.get().getToken(), status().isOk());
+    }
+
+    @Test
+    void testUnknownTokenRejected() throws Exception {
+        userAdmin.login();
+
+        getCurrent("ngasal", status().isUnauthorized());
+    }
+
+    @Test
+    void testTokenFromOtherInstanceAcceptedAfterRebuild() throws Exception {
+        User admin = userAdmin.get();
+        admin.setToken("other-instance");
+        admin.setTokenExpiredAt(System.currentTimeMillis() + 60 * 60 * 1000L);
+        userRepository.save(admin);
+
+        // Setelah rebuild token dari database ikut masuk bloom filter
+        liveTokenFilter.rebuild();
+
+        getCurrent("other-instance", status().isOk());
+    }
+
+    @Test
+    void testExpiredTokenNotCountedAsFalsePositive() throws Exception {
+        User admin = userAdmin.get();
+        admin.setToken("expired");
+        admin.setTokenExpiredAt(System.currentTimeMillis() - 1000L);
+        userRepository.save(admin);
+
+        // Bloom filter bilang "mungkin ada", database juga ada row-nya, cuma udah expired
+        liveTokenFilter.add("expired");
+        double before = falsePositives();
+
+        getCurrent("expired", status().isUnauthorized());
+
+        assertEquals(before, falsePositives());
+
+        // Request berikutnya udah ditolak tanpa query
+        assertTrue(liveTokenFilter.rejects("expired"));
+    }
+}
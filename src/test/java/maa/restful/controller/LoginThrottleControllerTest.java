@@ -0,0 +1,122 @@
+package maa.restful.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import maa.restful.dummyData.UserAdmin;
+import maa.restful.entity.User;
+import maa.restful.model.LoginUserRequest;
+import maa.restful.repository.AddressRepository;
+import maa.restful.repository.ContactRepository;
+import maa.restful.repository.UserRepository;
+import maa.restful.security.BCrypt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Bucket dibikin kecil dan gk diisi ulang biar gampang ditest
+@SpringBootTest(properties = {
+        "app.login-throttle.username.capacity=3",
+        "app.login-throttle.username.per-minute=0",
+        "app.login-throttle.address.capacity=5",
+        "app.login-throttle.address.per-minute=0"
+})
+@AutoConfigureMockMvc
+class LoginThrottleControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserAdmin userAdmin;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @BeforeEach
+    void setup() throws Exception {
+        addressRepository.deleteAll();
+        contactRepository.deleteAll();
+        userRepository.deleteAll();
+        userAdmin.reset();
+        userAdmin.get();
+    }
+
+    private void login(String username, String address, String password, boolean throttled) throws Exception {
+        LoginUserRequest request = LoginUserRequest.builder().username(username).password(password).build();
+        mockMvc.perform(
+                post("/api/auth/login")
+                        .with(servletRequest -> {
+                            servletRequest.setRemoteAddr(address);
+                            return servletRequest;
+                        })
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                throttled ? status().isTooManyRequests() : status().isUnauthorized()
+        );
+    }
+
+    @Test
+    void testLoginThrottled() throws Exception {
+        // Username sama dari IP yang beda-beda, yang ke-4 udah ditolak sebelum cek password
+        login("admin", "10.0.0.1", "salah", false);
+        login("admin", "10.0.0.2", "salah", false);
+        login("admin", "10.0.0.3", "salah", false);
+        login("admin", "10.0.0.4", "salah", true);
+
+        // IP yang sama nyoba banyak username, yang ke-6 ditolak
+        for (int i = 0; i < 5; i++) {
+            login("user" + i, "10.0.1.1", "salah", false);
+        }
+        login("user5", "10.0.1.1", "salah", true);
+    }
+
+    @Test
+    void testSuccessfulLoginNotCounted() throws Exception {
+        // User sendiri, bucket "admin" bisa udah habis dipake test lain (gk diisi ulang)
+        User user = new User();
+        user.setUsername("budi");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt()));
+        user.setName("Budi");
+        userRepository.save(user);
+
+        // Login berhasil berkali-kali dari IP yang sama gk ke-throttle walaupun lebih dari capacity
+        for (int i = 0; i < 6; i++) {
+            LoginUserRequest request = LoginUserRequest.builder().username("budi").password("rahasia").build();
+            mockMvc.perform(
+                    post("/api/auth/login")
+                            .with(servletRequest -> {
+                                servletRequest.setRemoteAddr("10.0.2.1");
+                                return servletRequest;
+                            })
+                            .accept(MediaType.APPLICATION_JSON_VALUE)
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(objectMapper.writeValueAsString(request))
+            ).andExpectAll(
+                    status().isOk()
+            );
+        }
+
+        // Yang gagal tetep dihitung
+        login("budi", "10.0.2.1", "salah", false);
+        login("budi", "10.0.2.1", "salah", false);
+        login("budi", "10.0.2.1", "salah", false);
+        login("budi", "10.0.2.1", "salah", true);
+    }
+}
@@ -0,0 +1,56 @@
+package maa.restful.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import maa.restful.model.LoginUserRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Lewat Tomcat beneran (bukan MockMvc), soalnya X-Forwarded-For dibaca sama valve-nya Tomcat
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.forward-headers-strategy=native",
+        "app.login-throttle.username.capacity=100",
+        "app.login-throttle.username.per-minute=0",
+        "app.login-throttle.address.capacity=2",
+        "app.login-throttle.address.per-minute=0"
+})
+class LoginThrottleForwardedControllerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private int login(String username, String forwardedFor) throws Exception {
+        LoginUserRequest request = LoginUserRequest.builder().username(username).password("salah").build();
+        HttpRequest httpRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .header("X-Forwarded-For", forwardedFor)
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(request)))
+                .build();
+        return httpClient.send(httpRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Test
+    void testThrottlePerForwardedClient() throws Exception {
+        // Semua request dateng dari proxy yang sama (localhost), client aslinya beda-beda
+        assertEquals(401, login("forwarded1", "203.0.113.1"));
+        assertEquals(401, login("forwarded2", "203.0.113.1"));
+        assertEquals(429, login("forwarded3", "203.0.113.1"));
+
+        // Client lain di belakang proxy yang sama punya bucket sendiri
+        assertEquals(401, login("forwarded4", "203.0.113.2"));
+    }
+}
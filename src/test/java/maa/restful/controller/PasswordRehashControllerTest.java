@@ -0,0 +1,129 @@
+package maa.restful.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import maa.restful.entity.User;
+import maa.restful.model.LoginUserRequest;
+import maa.restful.repository.AddressRepository;
+import maa.restful.repository.ContactRepository;
+import maa.restful.repository.UserRepository;
+import maa.restful.security.BCrypt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Test buat rehash password pas login, cost target dipatok biar gk tergantung kalibrasi
+@SpringBootTest(properties = "app.password.log-rounds=10")
+@AutoConfigureMockMvc
+class PasswordRehashControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @BeforeEach
+    void setup() {
+        addressRepository.deleteAll();
+        contactRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private String login(String username, String password) throws Exception {
+        LoginUserRequest request = LoginUserRequest.builder().username(username).password(password).build();
+        String body = mockMvc.perform(
+                post("/api/auth/login")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).path("data").path("token").asText();
+    }
+
+    private String waitForRehash(String username) throws Exception {
+        // Rehash jalan di background setelah login commit, ditunggu sebentar
+        String password = null;
+        for (int i = 0; i < 50; i++) {
+            password = userRepository.findById(username).orElseThrow().getPassword();
+            if (password.startsWith("$2a$10$")) break;
+            Thread.sleep(100);
+        }
+        return password;
+    }
+
+    private void saveUser(String username, String password) {
+        // Hash lama pake cost lebih kecil dari target
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(BCrypt.hashpw(password, BCrypt.gensalt(4)));
+        user.setName(username);
+        userRepository.save(user);
+    }
+
+    @Test
+    void testLoginRehashesLowerCostPassword() throws Exception {
+        saveUser("lama", "rahasia");
+
+        login("lama", "rahasia");
+
+        String password = waitForRehash("lama");
+        assertTrue(password.startsWith("$2a$10$"), password);
+        assertTrue(BCrypt.checkpw("rahasia", password));
+
+        // Token dari login tadi gk ketimpa sama rehash
+        assertNotNull(userRepository.findById("lama").orElseThrow().getToken());
+
+        // Password lama tetep bisa dipake login
+        login("lama", "rahasia");
+    }
+
+    @Test
+    void testLogoutKeepsRehashedPassword() throws Exception {
+        saveUser("cache", "rahasia");
+
+        // Request ini nyimpen user (masih hash lama) ke TokenCache sebelum rehash selesai
+        String token = login("cache", "rahasia");
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        assertTrue(waitForRehash("cache").startsWith("$2a$10$"));
+
+        // Logout nyimpen user, hash baru gk boleh ketimpa sama copy lama dari cache
+        mockMvc.perform(
+                delete("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        String password = userRepository.findById("cache").orElseThrow().getPassword();
+        assertTrue(password.startsWith("$2a$10$"), password);
+    }
+}
@@ -0,0 +1,129 @@
+package maa.restful.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import maa.restful.dummyData.UserAdmin;
+import maa.restful.model.LoginUserRequest;
+import maa.restful.model.TokenResponse;
+import maa.restful.model.UserResponse;
+import maa.restful.model.WebResponse;
+import maa.restful.repository.AddressRepository;
+import maa.restful.repository.ContactRepository;
+import maa.restful.repository.UserRepository;
+import maa.restful.repository.UserSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Test buat mode session, 1 user boleh punya banyak token sekaligus
+@SpringBootTest(properties = "app.auth.token-mode=session")
+@AutoConfigureMockMvc
+class SessionTokenControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserAdmin userAdmin;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    @BeforeEach
+    void setup() {
+        userSessionRepository.deleteAll();
+        addressRepository.deleteAll();
+        contactRepository.deleteAll();
+        userRepository.deleteAll();
+        userAdmin.reset();
+    }
+
+    private String login() throws Exception {
+        userAdmin.get();
+
+        LoginUserRequest request = LoginUserRequest.builder().username("admin").password("admin").build();
+        String body = mockMvc.perform(
+                post("/api/auth/login")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn().getResponse().getContentAsString();
+
+        WebResponse<TokenResponse> response = objectMapper.readValue(body, new TypeReference<WebResponse<TokenResponse>>() {});
+        return response.getData().getToken();
+    }
+
+    private void getCurrent(String token, boolean ok) throws Exception {
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                ok ? status().isOk() : status().isUnauthorized()
+        );
+    }
+
+    @Test
+    void testLoginManySessions() throws Exception {
+        String first = login();
+        String second = login();
+
+        assertNotEquals(first, second);
+        assertEquals(2, userSessionRepository.count());
+
+        // Table users gk ikut diupdate
+        assertNull(userAdmin.getFresh().getToken());
+
+        // Dua-duanya harus tetep bisa dipake
+        getCurrent(first, true);
+        getCurrent(second, true);
+    }
+
+    @Test
+    void testLogoutOneSession() throws Exception {
+        String first = login();
+        String second = login();
+
+        mockMvc.perform(
+                delete("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", first)
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        // Cuma session yang logout yang ditolak
+        getCurrent(first, false);
+        getCurrent(second, true);
+        assertEquals(1, userSessionRepository.count());
+    }
+
+    @Test
+    void testUnknownSessionToken() throws Exception {
+        login();
+
+        getCurrent("salah", false);
+    }
+}
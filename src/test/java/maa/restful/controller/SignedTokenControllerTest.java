@@ -0,0 +1,155 @@
+package maa.restful.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import maa.restful.dummyData.UserAdmin;
+import maa.restful.model.LoginUserRequest;
+import maa.restful.model.TokenResponse;
+import maa.restful.model.UserResponse;
+import maa.restful.model.WebResponse;
+import maa.restful.repository.AddressRepository;
+import maa.restful.repository.ContactRepository;
+import maa.restful.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Test buat mode signed token, tokennya gk disimpen di table users
+@SpringBootTest(properties = {
+        "app.auth.token-mode=signed",
+        "app.auth.signing-secret=rahasia-banget-buat-testing"
+})
+@AutoConfigureMockMvc
+class SignedTokenControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserAdmin userAdmin;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @BeforeEach
+    void setup() {
+        addressRepository.deleteAll();
+        contactRepository.deleteAll();
+        userRepository.deleteAll();
+        userAdmin.reset();
+    }
+
+    private String login() throws Exception {
+        userAdmin.get();
+
+        LoginUserRequest request = LoginUserRequest.builder().username("admin").password("admin").build();
+        String body = mockMvc.perform(
+                post("/api/auth/login")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn().getResponse().getContentAsString();
+
+        WebResponse<TokenResponse> response = objectMapper.readValue(body, new TypeReference<WebResponse<TokenResponse>>() {});
+        return response.getData().getToken();
+    }
+
+    @Test
+    void testLoginSignedToken() throws Exception {
+        String token = login();
+
+        assertTrue(token.startsWith("v1."));
+
+        // Table users gk ikut diupdate
+        assertNull(userAdmin.getFresh().getToken());
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<UserResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<WebResponse<UserResponse>>() {});
+
+            assertNull(response.getErrors());
+            assertEquals("admin", response.getData().getUsername());
+            assertEquals("admin", response.getData().getName());
+        });
+    }
+
+    @Test
+    void testTamperedSignedToken() throws Exception {
+        String token = login();
+
+        // Ganti expired di dalam token, signaturenya jadi gk cocok
+        String[] parts = token.split("\\.");
+        parts[2] = String.valueOf(Long.parseLong(parts[2]) + 1);
+        String tampered = String.join(".", parts);
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", tampered)
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+    }
+
+    @Test
+    void testSignedTokenDeletedUser() throws Exception {
+        String token = login();
+
+        // Signaturenya masih valid, tapi usernya udah gk ada
+        userRepository.deleteAll();
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+    }
+
+    @Test
+    void testLogoutSignedToken() throws Exception {
+        String token = login();
+
+        mockMvc.perform(
+                delete("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        // Token yang udah masuk revocation list harus ditolak
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+    }
+}
@@ -0,0 +1,91 @@
+package maa.restful.controller;
+
+import maa.restful.dummyData.UserAdmin;
+import maa.restful.entity.User;
+import maa.restful.repository.AddressRepository;
+import maa.restful.repository.ContactRepository;
+import maa.restful.repository.UserRepository;
+import maa.restful.security.SlidingExpiry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Test buat sliding expiry, flush dipanggil manual biar gk nunggu scheduler
+@SpringBootTest(properties = {
+        "app.auth.sliding-expiry.enabled=true",
+        "app.auth.sliding-expiry.flush-ms=3600000",
+        // Sama kayak cost UserAdmin, biar gk ada rehash di background yang ikut nulis ke row admin
+        "app.password.log-rounds=10"
+})
+@AutoConfigureMockMvc
+class SlidingExpiryControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserAdmin userAdmin;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private SlidingExpiry slidingExpiry;
+
+    @BeforeEach
+    void setup() {
+        addressRepository.deleteAll();
+        contactRepository.deleteAll();
+        userRepository.deleteAll();
+        userAdmin.reset();
+    }
+
+    private void getCurrent(String token) throws Exception {
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isOk()
+        );
+    }
+
+    @Test
+    void testTokenExpiryExtended() throws Exception {
+        // Token dari login beneran (biar dikenal LiveTokenFilter), trus dibikin tinggal 1 jam lagi
+        userAdmin.login();
+        User user = userAdmin.getFresh();
+        String token = user.getToken();
+        user.setTokenExpiredAt(System.currentTimeMillis() + 60 * 60 * 1000L);
+        userRepository.save(user);
+        Long before = userAdmin.getFresh().getTokenExpiredAt();
+
+        getCurrent(token);
+
+        // Belum ditulis sebelum di-flush
+        assertEquals(before, userAdmin.getFresh().getTokenExpiredAt());
+
+        slidingExpiry.flush();
+        Long after = userAdmin.getFresh().getTokenExpiredAt();
+        assertTrue(after > before + 24 * 60 * 60 * 1000L);
+
+        // Masih di dalam window, request berikutnya gk ngantri update lagi
+        getCurrent(token);
+        slidingExpiry.flush();
+        assertEquals(after, userAdmin.getFresh().getTokenExpiredAt());
+    }
+}
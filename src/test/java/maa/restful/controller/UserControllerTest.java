@@ -204,6 +204,29 @@ class UserControllerTest {
         });
     }
 
+    @Test
+    void testGetUserTokenFromOtherInstance() throws Exception {
+        // Token yang dibikin instance lain / ditulis langsung ke database, gk lewat login di instance ini
+        User admin = userAdmin.get();
+        admin.setToken("other-instance");
+        admin.setTokenExpiredAt(System.currentTimeMillis() + 60 * 60 * 1000L);
+        userRepository.save(admin);
+
+        // Harusnya tetep bisa, gk boleh ada 401 palsu
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN","other-instance")
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<UserResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<WebResponse<UserResponse>>() {});
+
+            assertNull(response.getErrors());
+            assertEquals("admin",response.getData().getUsername());
+        });
+    }
+
     @Test
     void testUpdateUserSuccess() throws Exception {
         // Login admin dulu, biar ada tokennya
@@ -335,4 +358,46 @@ class UserControllerTest {
             assertNotNull(response.getErrors());
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetUserAfterUpdate() throws Exception {
+        userAdmin.login();
+        User admin = userAdmin.get();
+
+        // Request pertama biar user masuk ke token cache
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        UpdateUserRequest request = new UpdateUserRequest();
+        request.setName("Admin Update");
+
+        mockMvc.perform(
+                patch("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(request))
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        // Harusnya gk dapet data basi dari cache
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .header("X-API-TOKEN", admin.getToken())
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<UserResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<WebResponse<UserResponse>>() {});
+
+            assertNull(response.getErrors());
+            assertEquals("Admin Update", response.getData().getName());
+        });
+    }
+}
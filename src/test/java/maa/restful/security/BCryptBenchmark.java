@@ -0,0 +1,41 @@
+package maa.restful.security;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+
+/*
+ * Benchmark sederhana BCrypt, bukan bagian dari test suite
+ * Jalanin manual : java -cp target/classes:target/test-classes maa.restful.security.BCryptBenchmark [logRounds] [seconds]
+ * Hasilnya hashes/second di 1 thread (= per core) dan berapa byte yang dialokasi tiap hash
+ * */
+public class BCryptBenchmark {
+
+    public static void main(String[] args) {
+        int logRounds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String hashed = BCrypt.hashpw("admin", BCrypt.gensalt(logRounds));
+
+        // Warm up dulu biar JIT udah selesai compile
+        long warmUpUntil = System.nanoTime() + 3_000_000_000L;
+        while (System.nanoTime() < warmUpUntil) {
+            BCrypt.checkpw("admin", hashed);
+        }
+
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+
+        long count = 0;
+        long start = System.nanoTime();
+        long until = start + seconds * 1_000_000_000L;
+        while (System.nanoTime() < until) {
+            if (!BCrypt.checkpw("admin", hashed)) throw new IllegalStateException("hash mismatch");
+            count++;
+        }
+        double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        System.out.printf("log_rounds=%d checks=%d elapsed=%.2fs hashes/s/core=%.2f bytes/hash=%d%n",
+                logRounds, count, elapsed, count / elapsed, allocated / Math.max(1, count));
+    }
+}
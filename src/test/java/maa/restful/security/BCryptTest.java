@@ -0,0 +1,102 @@
+package maa.restful.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BCryptTest {
+
+    // Hash dari semua prefix ($2$, $2a$, $2b$, $2x$, $2y$), hasil BCrypt harus tetep sama persis kalo class-nya diubah
+    private static final String[][] VECTORS = {
+            {"", "$2a$06$DCq7YPn5Rq63x1Lad4cll.TV4S6ytwfsfvkgY8jIucDrjc8deX1s."},
+            {"abc", "$2a$06$If6bvum7DFjUnE9p2uDeDu0YHzrHM6tf.iqN8.yx.jNN1ILEf7h0i"},
+            {"abcdefghijklmnopqrstuvwxyz", "$2a$06$.rCVZVOThsIa97pEDOxvGuRRgzG64bvtJ0938xuqzv18d3ZpQhstC"},
+            {"", "$2a$04$zOpAgJiM1g2vEuG1Y6n6a.pBj2g15P4QS9hI2RsV7kObLKc3WrHI2"},
+            {"", "$2b$05$J5WoH5mYC.5JFl5Dz3s7tO6q/DtVuvyogOWXmXbbjNlzHYSsnk1He"},
+            {"", "$2y$04$.22XuEb2avAw78.KCcFZ3Oiowb4ragLVVruM0ovt.vp7OR23ZAOne"},
+            {"", "$2x$04$do71qQCq6u3N53Pu8U8kmeFRhVFglAnvJH3TmiPiaxq65/BWQyr5a"},
+            {"a", "$2a$04$lwSC46SpzySGgm9u/siJ.uH/llHd.o2t1gtDgWJC/GcBJO4VPmaf6"},
+            {"a", "$2b$05$m5VArxHabVwmzBgLXuuFtO6s9zhaLd2cjzvJ8HOaMK5vrfYNs9K36"},
+            {"a", "$2y$04$saFOklG4i/3/VwWErIZNhua5zl5qe4b23jH3elNwFBugIlGk.AMBi"},
+            {"a", "$2x$04$uRdyq88L3czEyB6sZXhtVOFJ971siQqVCIVAYfzetbT.2IhIxG3xi"},
+            {"a", "$2$04$7IHFVIiogN3m2ZH/aL5EEeJgxNIRKeYdJcaUPAvneiRYDhoyDy17a"},
+            {"abc", "$2a$04$5vkXhWMr8BVk/gVe0QyZPOZrDQVutnyWtuWHnqtyYoTgfEvF4tiV."},
+            {"abc", "$2b$05$ALfwwvomccMQIv3eNmiKbuINVWCm/E7oRK3BJBLCnrN9SsXQt/oz6"},
+            {"abc", "$2y$04$qa/zL0hKBTsVp3hbm8d.P.5zkpYVvIBbJ18MPpaxIUeznt4pkal8y"},
+            {"abc", "$2x$04$0NI4LIC/w.cC7N/rLINuF.wqHTVTPhY/sj97IPtcGZLcNUUvFd1l."},
+            {"abc", "$2$04$g9Thy//d0RrTlBjnLn81Z.nPcLuFK.RDd4kjC9ibyzz9HJBku5xvS"},
+            {"abcdefghijklmnopqrstuvwxyz", "$2a$04$zC616JB8IaGqceH2fdUdaus/KYBXp6K0iQbTNtpmPpNgyq8G5sW2q"},
+            {"abcdefghijklmnopqrstuvwxyz", "$2b$05$UrFqinotGl3/bBcFIXvlbu5UFREs1vRWLmioKvNWHS4XhfDK3zEdW"},
+            {"abcdefghijklmnopqrstuvwxyz", "$2y$04$ARi5x0QWzra8x7uuRlmWG.HCftvF0ZbMfmH2RK3ravROMyTNM1kKm"},
+            {"abcdefghijklmnopqrstuvwxyz", "$2x$04$ygg3y3n3uTs0HA5OtHrIP.F5zU4vl13tTpj56etUinAUoD.Jnk0iG"},
+            {"abcdefghijklmnopqrstuvwxyz", "$2$04$qIUE2dHjBL.wr.7zJbnG.uXu3871OICeQJyv5nhGrHs1CVxozzNl."},
+            {"~!@#$%^&*()      ~!@#$%^&*()PNBFRD", "$2a$04$LP.td09lwBTnca4vZgOOcO6ocmzjGv0Ef32fJVqaIq2ywEXkIXF/W"},
+            {"~!@#$%^&*()      ~!@#$%^&*()PNBFRD", "$2b$05$HmTN1azLs1tD91f4Y2JsROe3EJVcY6PNkNWAYl5luj4ir1vkGX15u"},
+            {"~!@#$%^&*()      ~!@#$%^&*()PNBFRD", "$2y$04$JuagnMNL9IBJ96PcplzV6Oa9e1qYkGiXQib3B8I8U5aQip1tDl/Cy"},
+            {"~!@#$%^&*()      ~!@#$%^&*()PNBFRD", "$2x$04$sSNpr/IwDD19yP3M2IoP/uSVmtZIWZ9Ave3JeCV5sgD61zyQSD1sq"},
+            {"~!@#$%^&*()      ~!@#$%^&*()PNBFRD", "$2$04$vdEVSIowAYmta6bHKgsyIeuuytZiXVouYJdJjB4Xo2/QEZgZJ51K6"},
+            {"£€éÿ", "$2a$04$AdZDAwp7Pn3zgMdHXUm38u5WTIjmndnzCRjGWj1ZHJJEcjng0N6Ay"},
+            {"£€éÿ", "$2b$05$g6MMoSrApQxybqkmMWPU.e9.dGc1y7TNMDBnmPONbH7wN.BlfOz3q"},
+            {"£€éÿ", "$2y$04$Rpu4d2FnQkGawuzM9FzrRedRylJZ.mfBoa841RkGBUT78sZwD3EhK"},
+            {"£€éÿ", "$2x$04$urhnhijqClWZr1zZz36Zy.1.1fH.ej.WnK3FYHNotA4zoi5gv/VLy"},
+            {"£€éÿ", "$2$04$iQo2DB3xqDIr64fTdJYR5eblklb5sNJFd7rAxX1t.e3dBkcZrPSoq"},
+            {"admin", "$2a$04$2hdIjT4cpb8FBcW3bbFC6.X/NLECqRz.0M9YwAatx1CsGuc4Qr1uS"},
+            {"admin", "$2b$05$QDgnl.afSfd.lbrZuz5zDedPjvhwkITS2sJef9zhjDQ5bx32q97Va"},
+            {"admin", "$2y$04$CBbllqv2PzP80nlxiEKU/uJNqn25wsa1nHcS8LI4PTiBX12ayu5RG"},
+            {"admin", "$2x$04$1q68xi.6KvLWQipTo3xN4.WdKc0Xl2R3nx0vxkDcbd2ETkVj4EvJm"},
+            {"admin", "$2$04$MFhwZIFUoHe/Pzx5zMa/8.74zojQdFvsXymjvebndW4YDojvruVTK"},
+            {"pässwörd-with-a-rather-long-tail-0123456789-0123456789-0123456789", "$2a$04$5TMajy5vsV9kvcOBPfpaZeFZVZzg6KCrIiIHoHGBJcY0dMdvYa2Cy"},
+            {"pässwörd-with-a-rather-long-tail-0123456789-0123456789-0123456789", "$2b$05$.LNSNMWFFCd0jqF4O.QXouaSqw90yySEZCYPc0amHiCQpsuTJ97IW"},
+            {"pässwörd-with-a-rather-long-tail-0123456789-0123456789-0123456789", "$2y$04$cmnUom1Qv3EesaOxq4vbD.Qp1zWVxakg2GaxT5DEhWotozEasbQou"},
+            {"pässwörd-with-a-rather-long-tail-0123456789-0123456789-0123456789", "$2x$04$Ry0mALTvN7569NkqArSmzOIMoOJ06bFsYTjntqnBgtCKGAxJVc1ZO"},
+            {"pässwörd-with-a-rather-long-tail-0123456789-0123456789-0123456789", "$2$04$im4BN0vCJ1OeogADpEh7DetFtSfx4JbS6saJfOMTJ3P1M0rbcBP0q"}
+    };
+
+    @Test
+    void testHashCompatible() {
+        for (String[] vector : VECTORS) {
+            assertEquals(vector[1], BCrypt.hashpw(vector[0], vector[1]), vector[0]);
+        }
+    }
+
+    @Test
+    void testCheckpw() {
+        for (String[] vector : VECTORS) {
+            assertTrue(BCrypt.checkpw(vector[0], vector[1]), vector[0]);
+            assertFalse(BCrypt.checkpw(vector[0] + "x", vector[1]), vector[0]);
+        }
+    }
+
+    @Test
+    void testCheckpwBytes() {
+        for (String[] vector : VECTORS) {
+            assertTrue(BCrypt.checkpw(vector[0].getBytes(StandardCharsets.UTF_8), vector[1]), vector[0]);
+        }
+    }
+
+    @Test
+    void testEmptyPasswordWithoutMinor() {
+        // $2$ tanpa password ga punya key sama sekali, dari dulu error, jangan sampe diem-diem ngasih hash
+        String salt = "$2$04$7IHFVIiogN3m2ZH/aL5EEe";
+
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> BCrypt.hashpw("", salt));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> BCrypt.checkpw(new byte[0], salt + "JgxNIRKeYdJcaUPAvneiRYDhoyDy17a"));
+    }
+
+    @Test
+    void testCheckpwBytesWrongPassword() {
+        for (String[] vector : VECTORS) {
+            assertFalse(BCrypt.checkpw((vector[0] + "x").getBytes(StandardCharsets.UTF_8), vector[1]), vector[0]);
+        }
+    }
+
+    @Test
+    void testCheckpwWrongLength() {
+        String hashed = BCrypt.hashpw("admin", BCrypt.gensalt(4));
+
+        assertFalse(BCrypt.checkpw("admin", hashed + "x"));
+        assertTrue(BCrypt.checkpw("admin", hashed));
+    }
+}
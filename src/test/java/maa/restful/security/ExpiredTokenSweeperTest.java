@@ -0,0 +1,129 @@
+package maa.restful.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import maa.restful.entity.User;
+import maa.restful.entity.UserSession;
+import maa.restful.repository.AddressRepository;
+import maa.restful.repository.ContactRepository;
+import maa.restful.repository.UserRepository;
+import maa.restful.repository.UserSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Batch sengaja kecil biar sweep-nya kepaksa jalan beberapa batch
+@SpringBootTest(properties = {
+        "app.token-sweeper.batch-size=2",
+        "app.token-sweeper.pause-ms=0"
+})
+class ExpiredTokenSweeperTest {
+
+    @Autowired
+    private ExpiredTokenSweeper expiredTokenSweeper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @BeforeEach
+    void setup() {
+        userSessionRepository.deleteAll();
+        addressRepository.deleteAll();
+        contactRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private void user(String username, String token, Long tokenExpiredAt) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("hash");
+        user.setName(username);
+        user.setToken(token);
+        user.setTokenExpiredAt(tokenExpiredAt);
+        userRepository.save(user);
+    }
+
+    private void seed() {
+        long now = System.currentTimeMillis();
+
+        // 5 expired (termasuk sisa logout lama yang token_expired_at = 0), 2 masih hidup
+        for (int i = 1; i <= 4; i++) {
+            user("expired" + i, "expired-token-" + i, now - i * 1000L);
+        }
+        user("logout", null, 0L);
+        user("live1", "live-token-1", now + 60 * 60 * 1000L);
+        user("live2", "live-token-2", now + 60 * 60 * 1000L);
+
+        // 3 session expired, 1 masih hidup
+        for (int i = 1; i <= 3; i++) {
+            userSessionRepository.save(new UserSession("expired-hash-" + i, "live1", now - i * 1000L));
+        }
+        userSessionRepository.save(new UserSession("live-hash", "live1", now + 60 * 60 * 1000L));
+    }
+
+    @Test
+    void testSweepClearsExpiredTokensInBatches() {
+        seed();
+
+        expiredTokenSweeper.sweep();
+
+        // Semua yang expired kebersihin walaupun batch-nya cuma 2
+        for (int i = 1; i <= 4; i++) {
+            User user = userRepository.findById("expired" + i).orElseThrow();
+            assertNull(user.getToken());
+            assertNull(user.getTokenExpiredAt());
+        }
+        assertNull(userRepository.findById("logout").orElseThrow().getTokenExpiredAt());
+
+        // Yang masih hidup gk kesentuh
+        assertEquals("live-token-1", userRepository.findById("live1").orElseThrow().getToken());
+        assertEquals("live-token-2", userRepository.findById("live2").orElseThrow().getToken());
+
+        assertEquals(1, userSessionRepository.count());
+        assertTrue(userSessionRepository.existsById("live-hash"));
+
+        assertEquals(8, meterRegistry.get("token.sweeper.last-run.rows").gauge().value());
+
+        // Jalan lagi gk ada yang perlu dibersihin
+        expiredTokenSweeper.sweep();
+        assertEquals(0, meterRegistry.get("token.sweeper.last-run.rows").gauge().value());
+    }
+
+    @Test
+    void testSweepStopsAfterMaxBatches() {
+        seed();
+
+        // batch-size 2, max-batches 1 -> 1 kali sweep cuma 2 user + 2 session, sisanya run berikutnya
+        ExpiredTokenSweeper sweeper = new ExpiredTokenSweeper(jdbcTemplate, true, 2, 1, 0, new SimpleMeterRegistry());
+        sweeper.sweep();
+
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT count(*) FROM users WHERE token_expired_at IS NOT NULL AND token_expired_at < ?", Long.class, System.currentTimeMillis()));
+        assertEquals(2, userSessionRepository.count());
+
+        sweeper.sweep();
+        sweeper.sweep();
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM users WHERE token_expired_at < ?", Long.class, System.currentTimeMillis()));
+        assertEquals(1, userSessionRepository.count());
+        assertEquals(2, userRepository.findAll().stream().filter(user -> user.getToken() != null).count());
+    }
+}
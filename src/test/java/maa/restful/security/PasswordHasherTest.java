@@ -0,0 +1,74 @@
+package maa.restful.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    // threads, queue-size, timeout-ms, log-rounds (dipatok, gk kalibrasi), budget, min, max
+    private static PasswordHasher hasher(int threads, int queueSize, int logRounds, SimpleMeterRegistry registry) {
+        return new PasswordHasher(threads, queueSize, 5000, logRounds, 250, 10, 16, registry);
+    }
+
+    @Test
+    void testHashRunsOnHasherThread() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHasher passwordHasher = hasher(1, 1, 4, registry);
+        try {
+            String hashed = passwordHasher.hash("rahasia");
+            assertTrue(passwordHasher.matches("rahasia", hashed));
+            assertFalse(passwordHasher.matches("salah", hashed));
+
+            // Waktu nunggu dicatat di dalem task pool, jadi 3 kali hashing = 3 kali lewat pool
+            assertEquals(3, registry.timer("password.hash.wait").count());
+
+            // Rehash juga jalan di thread pool, bukan di thread yang manggil
+            CompletableFuture<String> thread = new CompletableFuture<>();
+            passwordHasher.rehashLater("rahasia", newPassword -> thread.complete(Thread.currentThread().getName()));
+            String name = thread.get(5, TimeUnit.SECONDS);
+            assertTrue(name.startsWith("password-hasher-"), name);
+            assertNotEquals(Thread.currentThread().getName(), name);
+        } finally {
+            passwordHasher.shutdown();
+        }
+    }
+
+    @Test
+    void testSaturatedPoolReturns503() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // Cost gede biar thread satu-satunya lama sibuk
+        PasswordHasher passwordHasher = hasher(1, 1, 14, registry);
+        try {
+            // 1 jalan di thread, 1 ngisi antrian
+            passwordHasher.rehashLater("satu", newPassword -> {});
+            passwordHasher.rehashLater("dua", newPassword -> {});
+
+            // Antrian penuh, langsung ditolak tanpa nunggu
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> passwordHasher.hash("tiga"));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+            assertEquals(1, registry.counter("password.hash.rejected").count());
+        } finally {
+            passwordHasher.shutdown();
+        }
+    }
+
+    @Test
+    void testLogRoundsGauge() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHasher passwordHasher = hasher(1, 1, 4, registry);
+        try {
+            assertEquals(4, registry.get("password.hash.log-rounds").gauge().value());
+            assertTrue(passwordHasher.needsRehash(BCrypt.hashpw("rahasia", BCrypt.gensalt(5))));
+            assertFalse(passwordHasher.needsRehash(BCrypt.hashpw("rahasia", BCrypt.gensalt(4))));
+        } finally {
+            passwordHasher.shutdown();
+        }
+    }
+}